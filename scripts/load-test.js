@@ -0,0 +1,71 @@
+// k6 load test for the /reservation endpoints.
+//
+// Run it once against an instance started with spring.threads.virtual.enabled=false and once
+// with it set to true, then compare the p50/p99 latencies and the request rate:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e MODE=platform --summary-export=platform.json scripts/load-test.js
+//   k6 run -e BASE_URL=http://localhost:8080 -e MODE=virtual --summary-export=virtual.json scripts/load-test.js
+//
+// All virtual users share the few sample books, so the per-book rate limit would answer most
+// requests with 429 and the run would measure the limiter instead of the threading model. Start
+// the instance with --reservation.rate-limit.enabled=false; the run fails if any 429 comes back.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+import { uuidv4 } from 'https://jslib.k6.io/k6-utils/1.4.0/index.js';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const BOOKS = [
+    'c1ffe15d-1fca-4ff1-936c-8fbb0714f448',
+    'f823034a-445e-4608-ac8e-2ddefb9d982f',
+    '00c42ad2-86d9-402d-b6aa-3db2c43e016a',
+    '9ff3c249-2b27-49a5-a920-306e6ff60d3b',
+];
+
+const rateLimited = new Counter('rate_limited');
+
+export const options = {
+    summaryTrendStats: ['avg', 'p(50)', 'p(90)', 'p(99)', 'max'],
+    thresholds: {
+        rate_limited: ['count==0'],
+    },
+    tags: { mode: __ENV.MODE || 'unknown' },
+    scenarios: {
+        reservations: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: Number(__ENV.VUS || 500) },
+                { duration: '1m', target: Number(__ENV.VUS || 500) },
+                { duration: '10s', target: 0 },
+            ],
+        },
+    },
+};
+
+export default function () {
+    const userId = uuidv4();
+    const bookId = BOOKS[Math.floor(Math.random() * BOOKS.length)];
+
+    const created = http.post(`${BASE_URL}/reservation`, JSON.stringify({ userId, bookId }), {
+        headers: { 'Content-Type': 'application/json' },
+        tags: { endpoint: 'create' },
+    });
+    if (created.status === 429) {
+        rateLimited.add(1);
+    }
+    // 400 is expected once the books run out of copies
+    check(created, { 'create answered': (r) => r.status === 201 || r.status === 400 });
+
+    const listed = http.get(`${BASE_URL}/reservation/users/${userId}`, { tags: { endpoint: 'list' } });
+    check(listed, { 'list answered': (r) => r.status === 200 || r.status === 404 });
+
+    if (created.status === 201) {
+        const reservationId = JSON.parse(created.body);
+        const fetched = http.get(`${BASE_URL}/reservation/${reservationId}`, { tags: { endpoint: 'get' } });
+        check(fetched, { 'get answered': (r) => r.status === 200 });
+
+        const canceled = http.patch(`${BASE_URL}/reservation/${reservationId}/CANCELED`, null, { tags: { endpoint: 'cancel' } });
+        check(canceled, { 'cancel answered': (r) => r.status === 200 });
+    }
+}
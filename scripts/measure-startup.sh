@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Measures the time from `docker run` until /actuator/health reports UP, for each image given,
+# and prints every run and the median per image, so the AOT/CDS image can be compared with the
+# baseline built from the same sources.
+#
+#   docker build --target baseline -t reservation:baseline .
+#   docker build -t reservation .
+#   docker compose up -d db
+#   scripts/measure-startup.sh [runs] [image...]
+#
+# Without images it compares reservation:baseline with reservation. The containers join the
+# compose network so they can reach the db service.
+set -euo pipefail
+
+RUNS=${1:-5}
+shift || true
+IMAGES=("$@")
+if [ ${#IMAGES[@]} -eq 0 ]; then
+  IMAGES=(reservation:baseline reservation)
+fi
+NETWORK=${NETWORK:-$(basename "$(pwd)")_default}
+PORT=${PORT:-18080}
+
+for image in "${IMAGES[@]}"; do
+  times=()
+  for run in $(seq 1 "$RUNS"); do
+    start=$(date +%s%N)
+    container=$(docker run -d --rm --network "$NETWORK" -p "$PORT:8080" \
+      -e SPRING_DATASOURCE_URL=jdbc:postgresql://db:5432/testdb?reWriteBatchedInserts=true \
+      "$image")
+    until curl -fs "http://localhost:$PORT/actuator/health" | grep -q '"status":"UP"'; do
+      sleep 0.05
+    done
+    end=$(date +%s%N)
+    times+=($(( (end - start) / 1000000 )))
+    echo "$image run $run: ${times[-1]} ms"
+    docker stop "$container" > /dev/null
+  done
+  median=$(printf '%s\n' "${times[@]}" | sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }')
+  echo "$image median of $RUNS runs: $median ms"
+done
@@ -0,0 +1,55 @@
+package acc.library.reservation;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Boots the application without a web server against a throw-away embedded PostgreSQL
+ * instance, so benchmarks exercise the real native queries without any external database.
+ */
+public final class BenchmarkApplication implements AutoCloseable {
+    private final EmbeddedPostgres postgres;
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    public static BenchmarkApplication start(Map<String, Object> properties) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.start();
+
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        defaults.put("spring.datasource.username", "postgres");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.datasource.hikari.maximum-pool-size", 32);
+        defaults.put("springdoc.api-docs.enabled", false);
+        //keep the background jobs out of the measurements
+        defaults.put("reservation.scheduling.enabled", false);
+        defaults.putAll(properties);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ReservationApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(defaults)
+                .run();
+        return new BenchmarkApplication(postgres, context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
@@ -0,0 +1,130 @@
+package acc.library.reservation.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import acc.library.reservation.entity.ReservationBookView;
+import acc.library.reservation.mapper.BookMapper;
+import acc.library.reservation.mapper.ReservationMapper;
+import acc.library.reservation.type.ReservationField;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing a page of {@code GET /reservation/users/{userId}} in each supported
+ * format, with all fields and with the fields a typical gateway asks for. The size of each
+ * payload is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"all", "created,status"})
+    public String fields;
+
+    private ObjectMapper mapper;
+
+    private List<ReservationInfoDTO> page;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        mapper = switch (format) {
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            default -> new ObjectMapper();
+        };
+
+        Set<ReservationField> selected = EnumSet.noneOf(ReservationField.class);
+        if (fields.equals("all")) {
+            selected = EnumSet.allOf(ReservationField.class);
+        } else {
+            for (String name : fields.split(",")) {
+                for (ReservationField field : ReservationField.values()) {
+                    if (field.getFieldName().equals(name)) {
+                        selected.add(field);
+                    }
+                }
+            }
+        }
+
+        ReservationMapper reservationMapper = new ReservationMapper();
+        reservationMapper.bookMapper = new BookMapper();
+        UUID userId = UUID.randomUUID();
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(reservationMapper.mapReservationViewToDTO(view(userId, i), selected));
+        }
+
+        System.out.println(format + " [" + fields + "]: " + serialize().length + " bytes per page of " + PAGE_SIZE);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    private static ReservationBookView view(UUID userId, int i) {
+        UUID id = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        Date created = new Date(System.currentTimeMillis() - i * 1000L);
+        return new ReservationBookView() {
+            public UUID getId() {
+                return id;
+            }
+
+            public UUID getUserId() {
+                return userId;
+            }
+
+            public UUID getBookId() {
+                return bookId;
+            }
+
+            public Date getCreated() {
+                return created;
+            }
+
+            public String getStatus() {
+                return "ACTIVE";
+            }
+
+            public String getTitle() {
+                return "Lusiadas";
+            }
+
+            public String getAuthor() {
+                return "Camoes";
+            }
+
+            public String getIsbn() {
+                return "0-7087-3852-4";
+            }
+        };
+    }
+}
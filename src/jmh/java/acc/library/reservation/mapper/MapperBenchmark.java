@@ -0,0 +1,114 @@
+package acc.library.reservation.mapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import acc.library.reservation.dto.BookInfoDTO;
+import acc.library.reservation.dto.ReservationDTO;
+import acc.library.reservation.dto.ReservationInfoDTO;
+import acc.library.reservation.entity.Books;
+import acc.library.reservation.entity.ReservationBookView;
+import acc.library.reservation.entity.Reservations;
+import acc.library.reservation.type.ReservationStatus;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the entity/DTO conversions done on every reservation request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private final ReservationMapper reservationMapper = new ReservationMapper();
+
+    private final BookMapper bookMapper = new BookMapper();
+
+    private ReservationDTO request;
+
+    private Reservations reservation;
+
+    private Books book;
+
+    private BookInfoDTO bookInfo;
+
+    private ReservationBookView view;
+
+    @Setup
+    public void setUp() {
+        reservationMapper.bookMapper = bookMapper;
+
+        request = new ReservationDTO();
+        request.setUserId(UUID.randomUUID());
+        request.setBookId(UUID.randomUUID());
+
+        reservation = new Reservations(UUID.randomUUID(), request.getUserId(), request.getBookId(), new Date(), ReservationStatus.ACTIVE);
+        book = new Books(request.getBookId(), "Lusiadas", "Camoes", "0-7087-3852-4", 10L);
+        bookInfo = bookMapper.mapBookEntityToDTO(book);
+        view = new ReservationBookView() {
+            public UUID getId() {
+                return reservation.getId();
+            }
+
+            public UUID getUserId() {
+                return reservation.getUserId();
+            }
+
+            public UUID getBookId() {
+                return reservation.getBookId();
+            }
+
+            public Date getCreated() {
+                return reservation.getCreated();
+            }
+
+            public String getStatus() {
+                return "ACTIVE";
+            }
+
+            public String getTitle() {
+                return book.getTitle();
+            }
+
+            public String getAuthor() {
+                return book.getAuthor();
+            }
+
+            public String getIsbn() {
+                return book.getIsbn();
+            }
+        };
+    }
+
+    @Benchmark
+    public Reservations mapReservationRequestDTOtoEntity() {
+        return reservationMapper.mapReservationRequestDTOtoEntity(request);
+    }
+
+    @Benchmark
+    public ReservationInfoDTO mapReservationInfoEntityToDTO() {
+        return reservationMapper.mapReservationInfoEntityToDTO(reservation, bookInfo);
+    }
+
+    @Benchmark
+    public ReservationInfoDTO mapReservationBookViewToDTO() {
+        return reservationMapper.mapReservationBookViewToDTO(view);
+    }
+
+    @Benchmark
+    public BookInfoDTO mapBookEntityToDTO() {
+        return bookMapper.mapBookEntityToDTO(book);
+    }
+}
@@ -0,0 +1,69 @@
+package acc.library.reservation.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import acc.library.reservation.BenchmarkApplication;
+import acc.library.reservation.dto.ReservationDTO;
+import acc.library.reservation.entity.Books;
+import acc.library.reservation.entity.BooksRepository;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of many threads reserving the same hot book, for each inventory engine
+ * ({@code reservation.inventory.mode}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class ContendedReservationBenchmark {
+    @Param({"direct", "striped"})
+    public String inventoryMode;
+
+    private BenchmarkApplication application;
+
+    private ReservationService reservationService;
+
+    private UUID bookId;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start(Map.of("reservation.inventory.mode", inventoryMode));
+        reservationService = application.getBean(ReservationService.class);
+
+        Books book = application.getBean(BooksRepository.class)
+                .save(new Books(null, "Hot Title", "JMH", "0-0000-0000-1", 1_000_000_000L));
+        bookId = book.getId();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public UUID reserveHotBook() {
+        ReservationDTO reservation = new ReservationDTO();
+        reservation.setUserId(UUID.randomUUID());
+        reservation.setBookId(bookId);
+        return reservationService.create(reservation);
+    }
+}
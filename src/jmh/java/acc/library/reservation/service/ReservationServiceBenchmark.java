@@ -0,0 +1,107 @@
+package acc.library.reservation.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import acc.library.reservation.BenchmarkApplication;
+import acc.library.reservation.dto.ReservationDTO;
+import acc.library.reservation.dto.ReservationInfoDTO;
+import acc.library.reservation.dto.ReservationPageDTO;
+import acc.library.reservation.entity.Books;
+import acc.library.reservation.entity.BooksRepository;
+import acc.library.reservation.entity.Reservations;
+import acc.library.reservation.entity.ReservationsRepository;
+import acc.library.reservation.type.ReservationField;
+import acc.library.reservation.type.ReservationStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of the main {@link ReservationService} operations, database round-trips
+ * included, against an embedded PostgreSQL instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationServiceBenchmark {
+    private static final int HISTORY_SIZE = 1000;
+
+    private BenchmarkApplication application;
+
+    private ReservationService reservationService;
+
+    private UUID bookId;
+
+    private UUID reservationId;
+
+    private UUID heavyUserId;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start(Map.of());
+        reservationService = application.getBean(ReservationService.class);
+
+        Books book = application.getBean(BooksRepository.class)
+                .save(new Books(null, "Benchmark", "JMH", "0-0000-0000-0", 1_000_000_000L));
+        bookId = book.getId();
+
+        ReservationDTO reservation = new ReservationDTO();
+        reservation.setUserId(UUID.randomUUID());
+        reservation.setBookId(bookId);
+        reservationId = reservationService.create(reservation);
+
+        //a user with a long history, inserted directly to bypass the active reservation limit
+        heavyUserId = UUID.randomUUID();
+        List<Reservations> history = new ArrayList<>();
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            history.add(new Reservations(null, heavyUserId, bookId, new Date(System.currentTimeMillis() - i * 1000L), ReservationStatus.EXPIRED));
+        }
+        application.getBean(ReservationsRepository.class).saveAll(history);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public UUID create() {
+        ReservationDTO reservation = new ReservationDTO();
+        reservation.setUserId(UUID.randomUUID());
+        reservation.setBookId(bookId);
+        return reservationService.create(reservation);
+    }
+
+    @Benchmark
+    public ReservationInfoDTO getReservationById() {
+        return reservationService.getReservationById(reservationId);
+    }
+
+    @Benchmark
+    public ReservationPageDTO getAllReservationsByUser() {
+        return reservationService.getAllReservationsByUser(heavyUserId, null, 100, EnumSet.allOf(ReservationField.class));
+    }
+
+    @Benchmark
+    public ReservationPageDTO getAllReservationsByUserWithoutBook() {
+        return reservationService.getAllReservationsByUser(heavyUserId, null, 100, EnumSet.of(ReservationField.CREATED, ReservationField.STATUS));
+    }
+}
@@ -0,0 +1,44 @@
+package acc.library.reservation.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.dto.BookImportDTO;
+import acc.library.reservation.service.BookImportService;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports a CSV catalog at startup when the application is launched with
+ * {@code --books.import=<path>}; files ending in {@code .gz} are decompressed on the fly.
+ */
+@Component
+@ConditionalOnProperty(name = "books.import")
+public class BookImportRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(BookImportRunner.class);
+
+    @Autowired
+    BookImportService bookImportService;
+
+    @Value("${books.import}")
+    Path path;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+             InputStream csv = path.toString().endsWith(".gz") ? new GZIPInputStream(file, 1 << 16) : file) {
+            BookImportDTO result = bookImportService.importCsv(csv);
+            log.info("Imported {} rows from {} in {} ms ({} rows/s): {} books inserted, {} updated", result.getRows(), path,
+                    result.getDurationMillis(), result.getRowsPerSecond(), result.getInserted(), result.getUpdated());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package acc.library.reservation.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Keeps {@code spring.main.lazy-initialization=true} (prod profile) from disabling background
+ * work: a lazy bean is only created when something injects it, and nothing injects the
+ * schedulers, so beans declaring {@code @Scheduled} methods are still created at startup.
+ */
+@Configuration
+public class LazyInitializationConfiguration {
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> !MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
@@ -0,0 +1,15 @@
+package acc.library.reservation.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} jobs unless {@code reservation.scheduling.enabled=false}, which
+ * benchmarks and tests use to keep the background jobs out of their measurements and assertions.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "reservation.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfiguration {
+}
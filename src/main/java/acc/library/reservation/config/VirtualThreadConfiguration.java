@@ -0,0 +1,27 @@
+package acc.library.reservation.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Extra wiring for {@code spring.threads.virtual.enabled=true}. Spring Boot already runs Tomcat
+ * requests and {@code @Scheduled} jobs on virtual threads in that mode; this configuration
+ * bounds how many of them may compete for the HikariCP pool at once.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfiguration {
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${reservation.virtual-threads.max-concurrent-requests:200}") int maxConcurrentRequests,
+            @Value("${reservation.virtual-threads.admission-timeout-ms:2000}") long admissionTimeoutMillis) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, admissionTimeoutMillis));
+        registration.addUrlPatterns("/reservation/*", "/reservation");
+        return registration;
+    }
+}
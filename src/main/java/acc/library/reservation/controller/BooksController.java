@@ -0,0 +1,74 @@
+package acc.library.reservation.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import acc.library.reservation.dto.BookImportDTO;
+import acc.library.reservation.events.BookAvailabilityPublisher;
+import acc.library.reservation.service.BookImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(path = "/books")
+public class BooksController {
+    @Autowired
+    BookAvailabilityPublisher bookAvailabilityPublisher;
+
+    @Autowired
+    BookImportService bookImportService;
+
+    @Value("${books.availability.max-books-per-subscriber:100}")
+    int maxBooksPerSubscriber;
+
+    @Operation(summary = "Stream the available copies of books as Server-Sent Events. " +
+            "The current copies are sent first, then at most one update per book and tick while they change. " +
+            "A catalog import updates the streams of the node that ran it; streams on other nodes show it with the " +
+            "next reservation event of the book.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Stream of availability events",
+                    content = @Content(mediaType = "text/event-stream")),
+            @ApiResponse(responseCode = "400",
+                    description = "Bad request",
+                    content = @Content)})
+    @GetMapping(path = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(@RequestParam Set<UUID> bookIds) throws ResponseStatusException {
+        if (bookIds.isEmpty() || bookIds.size() > maxBooksPerSubscriber) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Between 1 and " + maxBooksPerSubscriber + " book ids can be watched.");
+        }
+        return bookAvailabilityPublisher.subscribe(bookIds);
+    }
+
+    @Operation(summary = "Import a catalog of books from CSV with the header title,author,isbn,copies. " +
+            "Books are matched by ISBN: new ones are inserted, known ones get their title, author and copies updated, " +
+            "where copies is the number of copies owned and active reservations are subtracted from it.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Import summary",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookImportDTO.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Invalid CSV",
+                    content = @Content),
+            @ApiResponse(responseCode = "409",
+                    description = "The inventory runs in striped mode",
+                    content = @Content)})
+    @PostMapping(path = "/import", consumes = "text/csv", produces = MediaType.APPLICATION_JSON_VALUE)
+    public BookImportDTO importBooks(InputStream csv) throws IOException, ResponseStatusException {
+        return bookImportService.importCsv(csv);
+    }
+}
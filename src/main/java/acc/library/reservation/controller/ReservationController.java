@@ -7,26 +7,75 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import acc.library.reservation.dto.BatchResultDTO;
 import acc.library.reservation.dto.ReservationDTO;
+import acc.library.reservation.dto.ReservationEventDTO;
 import acc.library.reservation.dto.ReservationInfoDTO;
+import acc.library.reservation.dto.ReservationPageDTO;
+import acc.library.reservation.dto.WaitlistDTO;
+import acc.library.reservation.events.SseEventSink;
+import acc.library.reservation.ratelimit.ReservationRateLimiter;
+import acc.library.reservation.service.IdempotencyService;
+import acc.library.reservation.service.ReservationEventService;
 import acc.library.reservation.service.ReservationService;
+import acc.library.reservation.service.WaitlistService;
+import acc.library.reservation.type.ReservationField;
 import acc.library.reservation.type.ReservationStatus;
 
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping(path = "/reservation", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ReservationController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private static final int MAX_EVENTS_PAGE_SIZE = 1000;
+
+    static final String NDJSON_VALUE = "application/x-ndjson";
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    static final String SMILE_VALUE = "application/x-jackson-smile";
+
     @Autowired
     ReservationService reservationService;
 
-    @Operation(summary = "Reserve a book.")
+    @Autowired
+    WaitlistService waitlistService;
+
+    @Autowired
+    ReservationEventService reservationEventService;
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
+    @Autowired
+    ReservationRateLimiter reservationRateLimiter;
+
+    @Autowired(required = false)
+    SseEventSink sseEventSink;
+
+    @Operation(summary = "Reserve a book. Requests sent with the same " + IDEMPOTENCY_KEY_HEADER + " header by the same user " +
+            "create the reservation only once and return its id.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201",
                     description = "Reservation created.",
@@ -37,13 +86,77 @@ public class ReservationController {
                     content = @Content),
             @ApiResponse(responseCode = "404",
                     description = "Book not Found",
+                    content = @Content),
+            @ApiResponse(responseCode = "422",
+                    description = "Idempotency key already used for another book",
+                    content = @Content),
+            @ApiResponse(responseCode = "429",
+                    description = "Too many attempts by the user or for the book; retry after the Retry-After header",
                     content = @Content)})
     @PostMapping(consumes = "application/json")
-    public ResponseEntity<?> createReservation(@Valid @RequestBody ReservationDTO reservation) throws ResponseStatusException {
-        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.create(reservation));
+    public ResponseEntity<?> createReservation(@Valid @RequestBody ReservationDTO reservation,
+                                               @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws ResponseStatusException {
+        if (idempotencyKey == null) {
+            reservationRateLimiter.check(reservation.getUserId(), reservation.getBookId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.create(reservation));
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, IDEMPOTENCY_KEY_HEADER + " must have between 1 and " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters.");
+        }
+
+        //retries answered by this node never reach the database, nor count against the rate limits
+        UUID reservationId = idempotencyService.findCreated(reservation.getUserId(), idempotencyKey, reservation.getBookId())
+                .orElseGet(() -> {
+                    reservationRateLimiter.check(reservation.getUserId(), reservation.getBookId());
+                    return reservationService.create(reservation, idempotencyKey);
+                });
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationId);
+    }
+
+    @Operation(summary = "Reserve several books in one transaction. The result of each request is reported in request order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Result of each reservation request.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = List.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Bad request",
+                    content = @Content),
+            @ApiResponse(responseCode = "429",
+                    description = "Too many attempts by a user or for a book, one per request of the batch; retry after the Retry-After header",
+                    content = @Content)})
+    @PostMapping(path = "/batch", consumes = "application/json")
+    public List<BatchResultDTO> createReservations(@RequestBody List<ReservationDTO> reservations) throws ResponseStatusException {
+        reservationRateLimiter.checkAll(reservations);
+        return reservationService.createAll(reservations);
+    }
+
+    @Operation(summary = "Join the waitlist of a book that has no copies left. " +
+            "The book is reserved automatically when a copy is returned.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202",
+                    description = "Waiting for a copy, at the returned place of the book's queue.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = WaitlistDTO.class))}),
+            @ApiResponse(responseCode = "404",
+                    description = "Book not Found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409",
+                    description = "Copies are available or the user is already waiting",
+                    content = @Content),
+            @ApiResponse(responseCode = "429",
+                    description = "Too many attempts by the user or for the book; retry after the Retry-After header",
+                    content = @Content)})
+    @PostMapping(path = "/waitlist", consumes = "application/json")
+    public ResponseEntity<WaitlistDTO> joinWaitlist(@Valid @RequestBody ReservationDTO reservation) throws ResponseStatusException {
+        reservationRateLimiter.check(reservation.getUserId(), reservation.getBookId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(waitlistService.join(reservation));
     }
 
-    @Operation(summary = "Retrieve a existing reservation")
+    @Operation(summary = "Retrieve a existing reservation. " +
+            "Canceled and expired reservations moved to the archive after the archive retention are not returned.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
                     description = "Existing Reservation",
@@ -57,18 +170,99 @@ public class ReservationController {
         return reservationService.getReservationById(reservationId);
     }
 
-    @Operation(summary = "Retrieve all reservations for a specific user")
+    @Operation(summary = "Retrieve the reservation events published after a sequence, in sequence order. " +
+            "Pass the sequence of the last event received as the after parameter to resume.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Reservation events",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = List.class))})})
+    @GetMapping(path = "/events")
+    public List<ReservationEventDTO> getReservationEvents(@RequestParam(defaultValue = "0") long after,
+                                                         @RequestParam(defaultValue = "100") int limit) {
+        return reservationEventService.findAfter(after, Math.max(1, Math.min(limit, MAX_EVENTS_PAGE_SIZE)));
+    }
+
+    @Operation(summary = "Stream the reservation events as Server-Sent Events. The id of each event is its sequence; " +
+            "reconnecting with the " + LAST_EVENT_ID_HEADER + " header (or the after parameter) replays the missed events first.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Stream of reservation events",
+                    content = @Content(mediaType = "text/event-stream")),
+            @ApiResponse(responseCode = "404",
+                    description = "Event stream disabled",
+                    content = @Content)})
+    @GetMapping(path = "/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamReservationEvents(@RequestHeader(name = LAST_EVENT_ID_HEADER, required = false) Long lastEventId,
+                                              @RequestParam(required = false) Long after) throws ResponseStatusException {
+        if (sseEventSink == null) {
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND, "The reservation event stream is disabled.");
+        }
+        long lastSequence = lastEventId != null ? lastEventId : after != null ? after : 0;
+        return sseEventSink.subscribe(lastSequence);
+    }
+
+    @Operation(summary = "Retrieve all reservations for a specific user, newest first. " +
+            "When more reservations exist, the cursor of the next page is returned in the " + NEXT_CURSOR_HEADER + " header. " +
+            "The fields parameter selects the returned fields (userId, book, created, status), and the response is " +
+            "encoded as JSON, CBOR or Smile depending on the Accept header. " +
+            "Canceled and expired reservations moved to the archive after the archive retention are not returned.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
                     description = "Existing Reservation",
                     content = {@Content(mediaType = "application/json",
-                            schema = @Schema(implementation = List.class))}),
+                            schema = @Schema(implementation = List.class)),
+                            @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE),
+                            @Content(mediaType = SMILE_VALUE)}),
             @ApiResponse(responseCode = "400",
                     description = "Bad request",
                     content = @Content)})
-    @GetMapping(path = "users/{userId}")
-    public List<ReservationInfoDTO> getAllReservationsByUser(@PathVariable UUID userId) throws ResponseStatusException {
-        return reservationService.getAllReservationsByUser(userId);
+    @GetMapping(path = "users/{userId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE_VALUE})
+    public ResponseEntity<List<ReservationInfoDTO>> getAllReservationsByUser(@PathVariable UUID userId,
+                                                                             @RequestParam(required = false) String cursor,
+                                                                             @RequestParam(defaultValue = "100") int limit,
+                                                                             @RequestParam(required = false) List<String> fields) throws ResponseStatusException {
+        ReservationPageDTO page = reservationService.getAllReservationsByUser(userId, cursor, limit, parseFields(fields));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getReservations());
+    }
+
+    @Operation(summary = "Export the reservations created in [from, to), joined with their book, as NDJSON (one JSON object per line), oldest first. " +
+            "Rows are streamed from the database as they are written; set gzip=true to compress the response. " +
+            "Canceled and expired reservations moved to the archive after the archive retention are not exported.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Reservations, one per line",
+                    content = @Content(mediaType = NDJSON_VALUE)),
+            @ApiResponse(responseCode = "400",
+                    description = "Bad request",
+                    content = @Content)})
+    @GetMapping(path = "/export", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReservations(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                                                    @RequestParam(required = false) ReservationStatus status,
+                                                                    @RequestParam(defaultValue = "false") boolean gzip) throws ResponseStatusException {
+        if (!from.before(to)) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "from must be before to.");
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!gzip) {
+            return response.body(output -> reservationService.exportReservations(from, to, status, output));
+        }
+
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(output -> {
+                    try (GZIPOutputStream compressed = new GZIPOutputStream(output, 64 * 1024)) {
+                        reservationService.exportReservations(from, to, status, compressed);
+                    }
+                });
     }
 
     @Operation(summary = "Cancel a reservation")
@@ -79,9 +273,44 @@ public class ReservationController {
                             schema = @Schema(implementation = List.class))}),
             @ApiResponse(responseCode = "404",
                     description = "Reservation not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409",
+                    description = "Reservation is no longer ACTIVE",
                     content = @Content)})
     @PatchMapping(path = "{reservationId}/{status}")
     public void cancelReservationStatus(@PathVariable UUID reservationId, @PathVariable ReservationStatus status) throws ResponseStatusException {
         reservationService.cancelReservationStatus(reservationId, status);
     }
+
+    @Operation(summary = "Cancel several reservations in one transaction. The result of each id is reported in request order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Result of each cancellation.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = List.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Bad request",
+                    content = @Content)})
+    @PatchMapping(path = "batch/{status}", consumes = "application/json")
+    public List<BatchResultDTO> cancelReservationsStatus(@PathVariable ReservationStatus status, @RequestBody List<UUID> reservationIds) throws ResponseStatusException {
+        if (status != ReservationStatus.CANCELED) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Invalid Status Change, only CANCELED is allowed.");
+        }
+        return reservationService.cancelAll(reservationIds);
+    }
+
+    private static Set<ReservationField> parseFields(List<String> fields) throws ResponseStatusException {
+        if (fields == null || fields.isEmpty()) {
+            return EnumSet.allOf(ReservationField.class);
+        }
+
+        Set<ReservationField> selected = EnumSet.noneOf(ReservationField.class);
+        fields.forEach(name -> selected.add(Arrays.stream(ReservationField.values())
+                .filter(field -> field.getFieldName().equals(name.trim()))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Unknown field " + name + "."))));
+        return selected;
+    }
 }
@@ -0,0 +1,37 @@
+package acc.library.reservation.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import acc.library.reservation.dto.UserTierDTO;
+import acc.library.reservation.service.UserQuotaService;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping(path = "/users")
+public class UsersController {
+    @Autowired
+    UserQuotaService userQuotaService;
+
+    @Operation(summary = "Set the tier of a user, which selects the user's maximum of active reservations " +
+            "(reservation.quota.limit.<tier>). Active reservations above a lowered limit are kept; " +
+            "the user cannot reserve again until below it. Meant for administrators: expose it behind the gateway's admin access only.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204",
+                    description = "Tier set",
+                    content = @Content),
+            @ApiResponse(responseCode = "400",
+                    description = "Bad request",
+                    content = @Content)})
+    @PutMapping(path = "/{userId}/tier", consumes = "application/json")
+    public ResponseEntity<Void> setTier(@PathVariable UUID userId, @Valid @RequestBody UserTierDTO tier) {
+        userQuotaService.setTier(userId, tier.getTier());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,62 @@
+package acc.library.reservation.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the users and reservations written recently, so reads about them go to the
+ * primary for {@code reservation.datasource.read-your-writes-window} instead of a replica
+ * that may not have applied the write yet. The window should be longer than
+ * {@code reservation.datasource.replicas.max-lag}; nothing is tracked without replicas.
+ * The marks are kept in the memory of the node that made the write; a client whose next read
+ * reaches another node is routed to the primary by the cookie of {@link ReadYourWritesFilter}.
+ */
+@Component
+public class ReadYourWrites {
+    private final Cache<UUID, Boolean> recentWrites;
+
+    private final boolean enabled;
+
+    public ReadYourWrites(@Value("${reservation.datasource.replicas.urls:}") List<String> replicaUrls,
+                          @Value("${reservation.datasource.read-your-writes-window:5s}") Duration window,
+                          @Value("${reservation.datasource.read-your-writes-max-entries:100000}") long maxEntries) {
+        this.enabled = !replicaUrls.isEmpty();
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Records a write about a user or a reservation.
+     *
+     * @param key the unique identifier of the user or reservation that was written
+     */
+    public void recordWrite(UUID key) {
+        if (enabled && key != null) {
+            recentWrites.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Runs a read on the primary if the user or reservation it is about was written within
+     * the window, and on a replica otherwise.
+     *
+     * @param key  the unique identifier of the user or reservation being read
+     * @param read the read, which must issue the first statement of its transaction
+     * @return the result of the read
+     */
+    public <T> T read(UUID key, Supplier<T> read) {
+        if (enabled && recentWrites.getIfPresent(key) != null) {
+            return RoutingContext.onPrimary(read);
+        }
+        return read.get();
+    }
+}
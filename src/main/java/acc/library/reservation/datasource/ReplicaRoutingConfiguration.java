@@ -0,0 +1,84 @@
+package acc.library.reservation.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replicas listed in {@code reservation.datasource.replicas.urls}
+ * and everything else to {@code spring.datasource.url}.
+ * <p>
+ * The application's {@link DataSource} is a {@link LazyConnectionDataSourceProxy}: it fetches the
+ * physical connection on the first statement of a transaction, once the transaction manager has
+ * marked it read-only or not, and takes read-only connections from a {@link ReplicaRoutingDataSource}.
+ * Writes, quota checks and locking reads all run in read-write transactions and therefore stay on
+ * the primary. Every pool is configured with {@code spring.datasource.hikari.*}; replicas use the
+ * primary's credentials.
+ */
+@Configuration
+@ConditionalOnProperty(name = "reservation.datasource.replicas.urls")
+public class ReplicaRoutingConfiguration {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 @Value("${reservation.datasource.replicas.urls}") List<String> replicaUrls,
+                                 @Value("${reservation.datasource.replicas.max-lag:5s}") Duration maxLag) {
+        HikariDataSource primary = pool(properties, environment, properties.determineUrl(), ReplicaRoutingDataSource.PRIMARY);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = pool(properties, environment, replicaUrls.get(i), "replica-" + i);
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        replicaRoutingDataSource = new ReplicaRoutingDataSource(primary, replicas, maxLag);
+        replicaRoutingDataSource.checkReplicas();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.datasource.replicas.health-check-ms:2000}")
+    public void checkReplicas() {
+        if (replicaRoutingDataSource != null) {
+            replicaRoutingDataSource.checkReplicas();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource pool(DataSourceProperties properties, Environment environment, String url, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,90 @@
+package acc.library.reservation.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads read-only connections over the healthy replicas, round robin. A replica is healthy
+ * while it answers, is still in recovery and lags the primary by at most {@code maxLag};
+ * when no replica is healthy, or the read requires it, connections come from the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private static final String HEALTH_QUERY = "SELECT pg_is_in_recovery(), COALESCE(CASE " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END, 0)";
+
+    private final Map<String, DataSource> replicas;
+
+    private final double maxLagSeconds;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile List<String> healthyReplicas = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.replicas = replicas;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty() || RoutingContext.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * Probes every replica and routes reads only to the ones that passed.
+     */
+    public void checkReplicas() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        replicas.forEach((name, replica) -> {
+            if (isHealthy(name, replica)) {
+                healthy.add(name);
+            }
+        });
+
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("Routing read-only transactions to {}", healthy.isEmpty() ? List.of(PRIMARY) : healthy);
+        }
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    private boolean isHealthy(String name, DataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(HEALTH_QUERY)) {
+            return result.next() && result.getBoolean(1) && result.getDouble(2) <= maxLagSeconds;
+        } catch (SQLException e) {
+            if (healthyReplicas.contains(name)) {
+                log.warn("Replica {} failed its health check", name, e);
+            }
+            return false;
+        }
+    }
+}
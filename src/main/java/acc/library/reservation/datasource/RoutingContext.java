@@ -0,0 +1,50 @@
+package acc.library.reservation.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Lets a read-only transaction insist on the primary database, for reads that must see
+ * writes the replicas may not have applied yet. Only the first statement of a transaction
+ * picks its connection, so the transaction must start its work inside {@link #onPrimary}.
+ */
+public final class RoutingContext {
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (Boolean.TRUE.equals(PRIMARY_REQUIRED.get())) {
+            return work.get();
+        }
+
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    /**
+     * Requires the primary for the rest of the work of the current thread, for a filter that
+     * cannot pass that work as a {@link Supplier}.
+     *
+     * @return {@code true} if it was not required yet, in which case the caller must call {@link #release()}
+     */
+    static boolean require() {
+        if (Boolean.TRUE.equals(PRIMARY_REQUIRED.get())) {
+            return false;
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        return true;
+    }
+
+    static void release() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+}
@@ -0,0 +1,30 @@
+package acc.library.reservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResultDTO {
+    @JsonProperty("reservationId")
+    private UUID reservationId;
+
+    @JsonProperty("userId")
+    private UUID userId;
+
+    @JsonProperty("bookId")
+    private UUID bookId;
+
+    @JsonProperty("status")
+    private int status;
+
+    @JsonProperty("message")
+    private String message;
+}
@@ -0,0 +1,19 @@
+package acc.library.reservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookAvailabilityDTO {
+    @JsonProperty("bookId")
+    private UUID bookId;
+
+    @JsonProperty("copies")
+    private Long copies;
+}
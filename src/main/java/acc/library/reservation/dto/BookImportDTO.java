@@ -0,0 +1,26 @@
+package acc.library.reservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportDTO {
+    @JsonProperty("rows")
+    private long rows;
+
+    @JsonProperty("inserted")
+    private long inserted;
+
+    @JsonProperty("updated")
+    private long updated;
+
+    @JsonProperty("durationMillis")
+    private long durationMillis;
+
+    @JsonProperty("rowsPerSecond")
+    private long rowsPerSecond;
+}
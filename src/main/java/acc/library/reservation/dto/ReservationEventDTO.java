@@ -0,0 +1,31 @@
+package acc.library.reservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import acc.library.reservation.type.ReservationEventType;
+
+import java.util.Date;
+import java.util.UUID;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReservationEventDTO {
+    @JsonProperty("sequence")
+    private Long sequence;
+
+    @JsonProperty("type")
+    private ReservationEventType type;
+
+    @JsonProperty("reservationId")
+    private UUID reservationId;
+
+    @JsonProperty("userId")
+    private UUID userId;
+
+    @JsonProperty("bookId")
+    private UUID bookId;
+
+    @JsonProperty("created")
+    private Date created;
+}
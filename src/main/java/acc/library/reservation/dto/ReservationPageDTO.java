@@ -0,0 +1,14 @@
+package acc.library.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ReservationPageDTO {
+    private List<ReservationInfoDTO> reservations;
+
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package acc.library.reservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import acc.library.reservation.type.QuotaTier;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserTierDTO {
+    @JsonProperty("tier")
+    @NotNull(message = "Tier is required")
+    private QuotaTier tier;
+}
@@ -0,0 +1,24 @@
+package acc.library.reservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WaitlistDTO {
+    @JsonProperty("position")
+    private Long position;
+
+    @JsonProperty("userId")
+    private UUID userId;
+
+    @JsonProperty("bookId")
+    private UUID bookId;
+}
@@ -0,0 +1,12 @@
+package acc.library.reservation.entity;
+
+import java.util.UUID;
+
+/**
+ * Number of available copies of a {@link Books} row, without the catalog columns.
+ */
+public interface BookCopiesView {
+    UUID getId();
+
+    Long getCopies();
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Check;
 
 import java.util.UUID;
 
@@ -11,7 +12,9 @@ import java.util.UUID;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "books")
+@Table(name = "books",
+        uniqueConstraints = @UniqueConstraint(name = "uk_books_isbn", columnNames = "isbn"))
+@Check(constraints = "copies >= 0")
 public class Books {
     @Id
     @GeneratedValue(generator = "UUID")
@@ -1,10 +1,15 @@
 package acc.library.reservation.entity;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -17,25 +22,60 @@ import java.util.UUID;
 @Repository
 public interface BooksRepository extends JpaRepository<Books, UUID> {
     /**
-     * Decrements the number of available copies of a book in the inventory by 1.
-     * This method is typically used when a book is reserved, to reflect that one less copy
-     * is available for other reservations.
+     * Decrements the number of available copies of a book in the inventory by 1, but only
+     * while at least one copy is left. The check and the update run as a single statement
+     * under the row lock, so concurrent reservations of the same book can never drive the
+     * copy count below zero.
      *
      * @param bookId the unique identifier of the book whose available copies are to be decremented
+     * @return the number of updated rows; {@code 0} if the book does not exist or has no copies left
      */
     @Modifying
-    @Query("UPDATE Books books set books.copies = books.copies - 1 where books.id = ?1")
-    void decrementBookCopies(UUID bookId);
+    @Query("UPDATE Books books set books.copies = books.copies - 1 where books.id = ?1 and books.copies > 0")
+    int decrementBookCopies(UUID bookId);
 
     /**
-     * Increments the number of available copies of a book in the inventory by 1.
-     * This method is typically used when a reservation is canceled, to reflect that
-     * one more copy is available for other users.
+     * Decrements the number of available copies of a book in the inventory by {@code count},
+     * but only while at least {@code count} copies are left.
+     *
+     * @param bookId the unique identifier of the book whose available copies are to be decremented
+     * @param count  the number of copies to take
+     * @return the number of updated rows; {@code 0} if the book does not exist or has not enough copies left
+     */
+    @Modifying
+    @Query("UPDATE Books books set books.copies = books.copies - ?2 where books.id = ?1 and books.copies >= ?2")
+    int decrementBookCopies(UUID bookId, long count);
+
+    /**
+     * Increments the number of available copies of a book in the inventory by {@code count}.
+     * This method is typically used when reservations are canceled or expired, to reflect that
+     * more copies are available for other users.
      *
      * @param bookId the unique identifier of the book whose available copies are to be incremented
+     * @param count  the number of copies to give back
      */
     @Modifying
-    @Query("UPDATE Books books set books.copies = books.copies - 1 where books.id = ?1")
-    void incrementBookCopies(UUID bookId);
-}
+    @Query("UPDATE Books books set books.copies = books.copies + ?2 where books.id = ?1")
+    void incrementBookCopies(UUID bookId, long count);
+
+    /**
+     * Reads the number of available copies of a book while holding a write lock on its row,
+     * so the caller can take several copies at once without racing other writers.
+     *
+     * @param bookId the unique identifier of the book to lock
+     * @return the number of available copies, or empty if the book does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT books.copies FROM Books books where books.id = ?1")
+    Optional<Long> lockBookCopies(UUID bookId);
+
+    long countByCopies(Long copies);
 
+    /**
+     * Reads the number of available copies of several books with a single query.
+     *
+     * @param bookIds the unique identifiers of the books
+     * @return the copies of the books that exist
+     */
+    List<BookCopiesView> findByIdIn(Collection<UUID> bookIds);
+}
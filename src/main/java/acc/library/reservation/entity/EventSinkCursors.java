@@ -0,0 +1,25 @@
+package acc.library.reservation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The sequence of the last reservation event a durable sink has written, so the sink resumes
+ * after it on whichever node runs it next. Published events after the lowest cursor are kept
+ * by the outbox prune.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "event_sink_cursors")
+public class EventSinkCursors {
+    @Id
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "sequence", nullable = false)
+    private Long sequence;
+}
@@ -0,0 +1,11 @@
+package acc.library.reservation.entity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing {@link EventSinkCursors} entities.
+ */
+@Repository
+public interface EventSinkCursorsRepository extends JpaRepository<EventSinkCursors, String> {
+}
@@ -0,0 +1,38 @@
+package acc.library.reservation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A reservation request identified by the client's {@code Idempotency-Key}, scoped to the user
+ * that sent it. The row is inserted and completed in the transaction that creates the
+ * reservation, so a key exists if and only if its reservation was created.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created", columnList = "created"))
+public class IdempotencyKeys {
+    @Id
+    @Column(name = "idempotencyKey", nullable = false, length = 300)
+    private String idempotencyKey;
+
+    @Column(name = "userId", nullable = false)
+    private UUID userId;
+
+    @Column(name = "bookId", nullable = false)
+    private UUID bookId;
+
+    @Column(name = "reservationId")
+    private UUID reservationId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created", nullable = false)
+    private Date created;
+}
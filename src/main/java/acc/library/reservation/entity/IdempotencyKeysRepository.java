@@ -0,0 +1,52 @@
+package acc.library.reservation.entity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Repository interface for managing {@link IdempotencyKeys} entities.
+ */
+@Repository
+public interface IdempotencyKeysRepository extends JpaRepository<IdempotencyKeys, String> {
+    /**
+     * Claims an idempotency key for a new reservation. If another transaction holds an uncommitted
+     * claim on the same key, the insert waits for it and then does nothing if it committed.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param idempotencyKey the user-scoped idempotency key
+     * @param userId         the user making the reservation
+     * @param bookId         the book being reserved
+     * @param created        the time of the claim
+     * @return {@code 1} if the key was claimed, {@code 0} if it was already used
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, user_id, book_id, created) VALUES (?1, ?2, ?3, ?4) " +
+            "ON CONFLICT (idempotency_key) DO NOTHING", nativeQuery = true)
+    int claim(String idempotencyKey, UUID userId, UUID bookId, Date created);
+
+    /**
+     * Records the reservation created for a claimed key.
+     * It requires that the calling method is executed within a transactional context.
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyKeys keys set keys.reservationId = ?2 where keys.idempotencyKey = ?1")
+    void complete(String idempotencyKey, UUID reservationId);
+
+    /**
+     * Deletes up to {@code limit} keys claimed before {@code cutoff}.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param cutoff keys claimed before this instant are deleted
+     * @param limit  the maximum number of keys to delete
+     * @return the number of keys deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE idempotency_key IN (" +
+            "SELECT idempotency_key FROM idempotency_keys WHERE created < ?1 LIMIT ?2)", nativeQuery = true)
+    int deleteExpired(Date cutoff, int limit);
+}
@@ -0,0 +1,13 @@
+package acc.library.reservation.entity;
+
+/**
+ * Flat, read-only projection of a {@link Reservations} row joined with the catalog fields of
+ * its {@link Books} row. Returned by native queries whose column aliases match the getters.
+ */
+public interface ReservationBookView extends ReservationView {
+    String getTitle();
+
+    String getAuthor();
+
+    String getIsbn();
+}
@@ -0,0 +1,54 @@
+package acc.library.reservation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import acc.library.reservation.type.ReservationEventType;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Transactional outbox of reservation state changes. Rows are written in the transaction that
+ * changed the reservation; the relay later stamps them with a gapless {@code sequence}, in
+ * publication order, which consumers use as their resume cursor. Ids come from a pooled sequence
+ * that hands each node a block of {@code hibernate.jdbc.batch_size} ids, so the events of a batch
+ * are inserted in JDBC batches; ids of different nodes therefore do not follow the write order.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "reservation_events", indexes = {
+        @Index(name = "idx_reservation_events_sequence", columnList = "sequence, created, id")
+})
+public class ReservationEvents {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_events_seq")
+    @SequenceGenerator(name = "reservation_events_seq", sequenceName = "reservation_events_seq", allocationSize = 50)
+    @Column(name = "id", unique = true, nullable = false)
+    private Long id;
+
+    @Column(name = "sequence", unique = true)
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private ReservationEventType type;
+
+    @Column(name = "reservationId", nullable = false)
+    private UUID reservationId;
+
+    @Column(name = "userId", nullable = false)
+    private UUID userId;
+
+    @Column(name = "bookId", nullable = false)
+    private UUID bookId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created")
+    @CreationTimestamp
+    private Date created;
+}
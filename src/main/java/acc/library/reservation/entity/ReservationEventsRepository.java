@@ -0,0 +1,63 @@
+package acc.library.reservation.entity;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Repository interface for managing {@link ReservationEvents} outbox rows.
+ */
+@Repository
+public interface ReservationEventsRepository extends JpaRepository<ReservationEvents, Long> {
+    /**
+     * Retrieves the oldest events that were not relayed yet, in the order they were written.
+     *
+     * @param limit the maximum number of events to return
+     * @return up to {@code limit} events without a sequence, ordered by creation time and then by id
+     */
+    List<ReservationEvents> findBySequenceIsNullOrderByCreatedAscIdAsc(Limit limit);
+
+    /**
+     * Retrieves relayed events after a consumer cursor, in publication order.
+     *
+     * @param sequence the sequence of the last event the consumer has seen
+     * @param limit    the maximum number of events to return
+     * @return up to {@code limit} events with a sequence greater than {@code sequence}
+     */
+    List<ReservationEvents> findBySequenceGreaterThanOrderBySequenceAsc(long sequence, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(events.sequence), 0) FROM ReservationEvents events")
+    long findLastSequence();
+
+    /**
+     * Deletes the oldest published events written before the cutoff, walking the sequence index
+     * from the start. The last published event is kept, since the next sequences follow it, and
+     * so are the events a durable sink has not written yet, after its cursor.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param cutoff published events written before this instant are deleted
+     * @param limit  the maximum number of events to delete
+     * @return the number of events deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM reservation_events WHERE id IN (" +
+            "SELECT id FROM reservation_events WHERE sequence < (SELECT max(sequence) FROM reservation_events) " +
+            "AND sequence <= (SELECT COALESCE(min(sequence), 9223372036854775807) FROM event_sink_cursors) " +
+            "AND created < ?1 ORDER BY sequence LIMIT ?2)", nativeQuery = true)
+    int deletePublishedBefore(Date cutoff, int limit);
+
+    /**
+     * Tries to take a PostgreSQL advisory lock held until the end of the current transaction.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param key the lock key
+     * @return {@code true} if the lock was taken, {@code false} if another transaction holds it
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(?1)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(long key);
+}
@@ -0,0 +1,9 @@
+package acc.library.reservation.entity;
+
+/**
+ * The projection of the {@code RETURNING} clause of a status-transition update. It is kept apart
+ * from {@link ReservationTransitionView}, which {@link Reservations} implements, because Spring Data
+ * does not project query results onto an interface the entity itself already implements.
+ */
+public interface ReservationTransition extends ReservationTransitionView {
+}
@@ -0,0 +1,16 @@
+package acc.library.reservation.entity;
+
+import java.util.UUID;
+
+/**
+ * Identifies a {@link Reservations} row whose status was just changed, as returned by the
+ * {@code RETURNING} clause of a status-transition update. Implemented by {@link Reservations}
+ * itself, so newly created reservations can be handled the same way.
+ */
+public interface ReservationTransitionView {
+    UUID getId();
+
+    UUID getUserId();
+
+    UUID getBookId();
+}
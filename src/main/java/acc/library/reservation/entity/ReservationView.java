@@ -0,0 +1,20 @@
+package acc.library.reservation.entity;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Flat, read-only projection of a {@link Reservations} row, without its book. Returned by
+ * native queries whose column aliases match the getters.
+ */
+public interface ReservationView {
+    UUID getId();
+
+    UUID getUserId();
+
+    UUID getBookId();
+
+    Date getCreated();
+
+    String getStatus();
+}
@@ -14,8 +14,12 @@ import java.util.UUID;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "reservations")
-public class Reservations {
+@Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservations_user_created", columnList = "userId, created, id"),
+        @Index(name = "idx_reservations_user_status", columnList = "userId, status"),
+        @Index(name = "idx_reservations_status_created", columnList = "status, created")
+})
+public class Reservations implements ReservationTransitionView {
     @Id
     @GeneratedValue(generator = "UUID")
     @Column(name = "id", unique = true, nullable = false)
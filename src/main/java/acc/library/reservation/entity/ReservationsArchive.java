@@ -0,0 +1,46 @@
+package acc.library.reservation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import acc.library.reservation.type.ReservationStatus;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Closed reservations older than {@code reservation.archive.retention}, moved out of the
+ * partitioned {@code reservations} table by the archiver. Rows are only inserted and read
+ * per user, so the table carries a single secondary index.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "reservations_archive", indexes = {
+        @Index(name = "idx_reservations_archive_user_created", columnList = "userId, created")
+})
+public class ReservationsArchive {
+    @Id
+    @Column(name = "id", unique = true, nullable = false)
+    private UUID id;
+
+    @Column(name = "userId", nullable = false)
+    private UUID userId;
+
+    @Column(name = "bookId", nullable = false)
+    private UUID bookId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created", nullable = false)
+    private Date created;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReservationStatus status;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "archived", nullable = false)
+    private Date archived;
+}
@@ -1,55 +1,221 @@
 package acc.library.reservation.entity;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import acc.library.reservation.type.ReservationStatus;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link Reservations} entities. It extends {@link JpaRepository}
  * to provide basic CRUD operations and includes custom methods for handling reservation-specific
  * queries and modifications. This repository is a key component for interacting with the
  * reservations table in the database.
+ * The table is partitioned by month of {@code created} (see {@code db/partitioning.sql}); queries
+ * that bound {@code created} repeat the bound on the partitioned table, so PostgreSQL only scans
+ * the partitions that can hold matching rows.
  */
 @Repository
 public interface ReservationsRepository extends JpaRepository<Reservations, UUID> {
+    String RESERVATION_BOOK_VIEW = "SELECT r.id AS \"id\", r.user_id AS \"userId\", r.book_id AS \"bookId\", " +
+            "r.created AS \"created\", r.status AS \"status\", " +
+            "b.title AS \"title\", b.author AS \"author\", b.isbn AS \"isbn\" " +
+            "FROM reservations r JOIN books b ON b.id = r.book_id ";
+
+    String RESERVATION_VIEW = "SELECT r.id AS \"id\", r.user_id AS \"userId\", r.book_id AS \"bookId\", " +
+            "r.created AS \"created\", r.status AS \"status\" FROM reservations r ";
+
     /**
-     * Retrieves the count of active reservations made by a specific user.
+     * Cancels a reservation, but only if it is still ACTIVE, in a single statement. Concurrent
+     * cancellations and the expiry job race on the row lock, and only the one that finds the
+     * reservation ACTIVE gets it back, so its copy is released exactly once.
+     * It requires that the calling method is executed within a transactional context.
      *
-     * @param userId the unique identifier of the user whose active reservations are to be counted
-     * @return the total number of active reservations for the specified user
+     * @param reservationId the unique identifier of the reservation to cancel
+     * @return the canceled reservation, with its user and book, or empty if it does not exist or is not ACTIVE
      */
-    @Query(value = "SELECT COUNT(id) from reservations WHERE user_id= ?1 AND reservations.status = 'ACTIVE'", nativeQuery = true)
-    Long numberOfActiveReservations(UUID userId);
+    @Query(value = "UPDATE reservations SET status = 'CANCELED' WHERE id = ?1 AND status = 'ACTIVE' " +
+            "RETURNING id AS \"id\", user_id AS \"userId\", book_id AS \"bookId\"", nativeQuery = true)
+    Optional<ReservationTransition> cancelActiveReservation(UUID reservationId);
+
+    long countByStatus(ReservationStatus status);
 
     /**
-     * Updates the status of a reservation in the database.
+     * Retrieves the most recent reservations of a user created since {@code since}, joined with
+     * their book, newest first, in a single round-trip. The bound on {@code created} keeps the
+     * query on the partitions of the recent months.
      *
-     * @param status        the new status to update the reservation to; must be a valid {@link ReservationStatus} value
-     * @param reservationId the unique identifier of the reservation to update
+     * @param userId the unique identifier of the user whose reservations are to be retrieved
+     * @param since  the inclusive lower bound of the creation time
+     * @param limit  the maximum number of rows to return
+     * @return up to {@code limit} reservations ordered by creation time and id, descending
      */
-    @Modifying
-    @Query("UPDATE Reservations reservations set reservations.status = ?1 where reservations.id = ?2")
-    void updateReservationStatus(ReservationStatus status, UUID reservationId);
+    @Query(value = RESERVATION_BOOK_VIEW + "WHERE r.user_id = ?1 AND r.created >= ?2 " +
+            "ORDER BY r.created DESC, r.id DESC LIMIT ?3", nativeQuery = true)
+    List<ReservationBookView> findRecentPageByUserId(UUID userId, Date since, int limit);
+
+    /**
+     * Retrieves the most recent reservations of a user created before {@code before}, joined
+     * with their book, newest first. Completes a first page the recent partitions could not fill.
+     *
+     * @param userId the unique identifier of the user whose reservations are to be retrieved
+     * @param before the exclusive upper bound of the creation time
+     * @param limit  the maximum number of rows to return
+     * @return up to {@code limit} reservations ordered by creation time and id, descending
+     */
+    @Query(value = RESERVATION_BOOK_VIEW + "WHERE r.user_id = ?1 AND r.created < ?2 " +
+            "ORDER BY r.created DESC, r.id DESC LIMIT ?3", nativeQuery = true)
+    List<ReservationBookView> findPageByUserIdBefore(UUID userId, Date before, int limit);
+
+    /**
+     * Retrieves the next page of reservations of a user joined with their book, continuing
+     * strictly after the given {@code (created, id)} keyset cursor.
+     *
+     * @param userId  the unique identifier of the user whose reservations are to be retrieved
+     * @param created the creation time of the last reservation of the previous page
+     * @param id      the id of the last reservation of the previous page
+     * @param limit   the maximum number of rows to return
+     * @return up to {@code limit} reservations ordered by creation time and id, descending
+     */
+    @Query(value = RESERVATION_BOOK_VIEW + "WHERE r.user_id = ?1 AND r.created <= ?2 AND (r.created, r.id) < (?2, ?3) " +
+            "ORDER BY r.created DESC, r.id DESC LIMIT ?4", nativeQuery = true)
+    List<ReservationBookView> findPageByUserIdAfter(UUID userId, Date created, UUID id, int limit);
+
+    /**
+     * Same as {@link #findRecentPageByUserId(UUID, Date, int)}, without joining the book, for
+     * clients that did not ask for book fields.
+     */
+    @Query(value = RESERVATION_VIEW + "WHERE r.user_id = ?1 AND r.created >= ?2 " +
+            "ORDER BY r.created DESC, r.id DESC LIMIT ?3", nativeQuery = true)
+    List<ReservationView> findRecentReservationPageByUserId(UUID userId, Date since, int limit);
+
+    /**
+     * Same as {@link #findPageByUserIdBefore(UUID, Date, int)}, without joining the book, for
+     * clients that did not ask for book fields.
+     */
+    @Query(value = RESERVATION_VIEW + "WHERE r.user_id = ?1 AND r.created < ?2 " +
+            "ORDER BY r.created DESC, r.id DESC LIMIT ?3", nativeQuery = true)
+    List<ReservationView> findReservationPageByUserIdBefore(UUID userId, Date before, int limit);
+
+    /**
+     * Same as {@link #findPageByUserIdAfter(UUID, Date, UUID, int)}, without joining the book,
+     * for clients that did not ask for book fields.
+     */
+    @Query(value = RESERVATION_VIEW + "WHERE r.user_id = ?1 AND r.created <= ?2 AND (r.created, r.id) < (?2, ?3) " +
+            "ORDER BY r.created DESC, r.id DESC LIMIT ?4", nativeQuery = true)
+    List<ReservationView> findReservationPageByUserIdAfter(UUID userId, Date created, UUID id, int limit);
+
+    /**
+     * Streams the reservations created in {@code [from, to)} joined with their book, oldest first.
+     * The rows are read through a server-side cursor in chunks of the fetch size and are not
+     * managed by the persistence context, so memory does not grow with the number of rows.
+     * The stream must be consumed and closed within a transaction.
+     *
+     * @param from   the inclusive lower bound of the creation time
+     * @param to     the exclusive upper bound of the creation time
+     * @param status the status to filter by, or {@code null} for all statuses
+     * @return the matching reservations ordered by creation time and id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = RESERVATION_BOOK_VIEW + "WHERE r.created >= ?1 AND r.created < ?2 " +
+            "AND (CAST(?3 AS varchar) IS NULL OR r.status = CAST(?3 AS varchar)) " +
+            "ORDER BY r.created, r.id", nativeQuery = true)
+    Stream<ReservationBookView> streamByCreatedBetween(Date from, Date to, String status);
+
+    /**
+     * Cancels the given reservations, but only those that are still ACTIVE, in a single statement.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param reservationIds the unique identifiers of the reservations to cancel
+     * @return the canceled reservations, with their user and book
+     */
+    @Query(value = "UPDATE reservations SET status = 'CANCELED' WHERE id IN (?1) AND status = 'ACTIVE' " +
+            "RETURNING id AS \"id\", user_id AS \"userId\", book_id AS \"bookId\"", nativeQuery = true)
+    List<ReservationTransition> cancelActiveReservations(Collection<UUID> reservationIds);
 
-    List<Reservations> findByUserId(UUID userId);
+    /**
+     * Expires up to {@code limit} active reservations created before {@code cutoff}, oldest first.
+     * Only ACTIVE rows are touched, so canceled and already expired reservations are never rewritten,
+     * and rows locked by a concurrent transaction are skipped and picked up by a later batch.
+     * When several nodes share the backlog, each one only expires the reservations whose book id
+     * hashes to its shard, so their batches do not compete for the same rows.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param cutoff     reservations created before this instant are expired
+     * @param limit      the maximum number of reservations to expire
+     * @param shardCount the number of shards the book ids are split into; {@code 1} expires every book
+     * @param shard      the shard to expire, between {@code 0} and {@code shardCount - 1}
+     * @return the expired reservations, with their user and book
+     */
+    @Query(value = "UPDATE reservations SET status = 'EXPIRED' WHERE created < ?1 AND id IN (" +
+            "SELECT id FROM reservations WHERE status = 'ACTIVE' AND created < ?1 " +
+            "AND (?3 = 1 OR (hashtext(CAST(book_id AS text)) & 2147483647) % ?3 = ?4) " +
+            "ORDER BY created LIMIT ?2 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id AS \"id\", user_id AS \"userId\", book_id AS \"bookId\"", nativeQuery = true)
+    List<ReservationTransition> expireActiveReservations(Date cutoff, int limit, int shardCount, int shard);
 
     /**
-     * Updates the status of all reservations in the database to "EXPIRED".
-     * This is a bulk update operation that modifies all rows in the reservations
-     * table by setting their status to {@link ReservationStatus#EXPIRED}.
-     * Typically used for expiring reservations that exceed a given threshold
-     * duration. It requires that the calling method is executed within a
-     * transactional context.
-     * Note: Ensure that this operation is used cautiously as it affects all
-     * records in the reservations table.
+     * Counts the active reservations created before {@code cutoff}, stopping at {@code limit}.
+     *
+     * @param cutoff reservations created before this instant are counted
+     * @param limit  the count at which to stop
+     * @return the number of expirable reservations, at most {@code limit}
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT 1 FROM reservations WHERE status = 'ACTIVE' AND created < ?1 " +
+            "LIMIT ?2) backlog", nativeQuery = true)
+    long countExpirable(Date cutoff, int limit);
+
+    /**
+     * Moves up to {@code limit} canceled and expired reservations created before {@code cutoff},
+     * oldest first, from the reservations table to {@code reservations_archive} in one statement.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param cutoff closed reservations created before this instant are archived
+     * @param limit  the maximum number of reservations to move
+     * @return the number of reservations archived
      */
     @Modifying
-    @Query("UPDATE Reservations reservations set reservations.status = 'EXPIRED'")
-    void updateAllReservationStatus();
-}
+    @Query(value = "WITH moved AS (DELETE FROM reservations WHERE created < ?1 AND id IN (" +
+            "SELECT id FROM reservations WHERE status IN ('CANCELED', 'EXPIRED') AND created < ?1 " +
+            "ORDER BY created LIMIT ?2 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, user_id, book_id, created, status) " +
+            "INSERT INTO reservations_archive (id, user_id, book_id, created, status, archived) " +
+            "SELECT id, user_id, book_id, created, status, now() FROM moved", nativeQuery = true)
+    int archiveClosedReservations(Date cutoff, int limit);
 
+    /**
+     * Creates the monthly partition starting at {@code monthStart}, if it does not exist yet.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param monthStart the first day of the month
+     * @return {@code true} if the partition was created
+     */
+    @Query(value = "SELECT create_reservations_partition(?1)", nativeQuery = true)
+    boolean createMonthlyPartition(LocalDate monthStart);
+
+    /**
+     * Drops the monthly partitions that end before {@code cutoff} and no longer hold any rows.
+     * A partition that stays locked by another transaction for longer than the lock timeout of
+     * the function is skipped, and dropped by a later call.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param cutoff partitions ending before this instant are dropped once empty
+     * @return the number of partitions dropped
+     */
+    @Query(value = "SELECT drop_empty_reservations_partitions(CAST(?1 AS timestamp))", nativeQuery = true)
+    int dropEmptyPartitions(Date cutoff);
+}
@@ -0,0 +1,31 @@
+package acc.library.reservation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * A time-bounded lease held by one node of the cluster: either the leadership of the
+ * maintenance jobs, or the liveness of a node, which is how nodes discover each other.
+ * A lease whose {@code expires} is in the past is free to be taken by another node.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "scheduler_leases")
+public class SchedulerLeases {
+    @Id
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "owner", nullable = false, length = 100)
+    private String owner;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "expires", nullable = false)
+    private Date expires;
+}
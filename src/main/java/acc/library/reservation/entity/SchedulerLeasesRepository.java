@@ -0,0 +1,80 @@
+package acc.library.reservation.entity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for managing {@link SchedulerLeases} entities. Expiry times are computed
+ * from the database clock, so the clocks of the nodes do not need to agree.
+ */
+@Repository
+public interface SchedulerLeasesRepository extends JpaRepository<SchedulerLeases, String> {
+    /**
+     * Takes a lease if it is free or expired, or extends it if {@code owner} already holds it.
+     * Two nodes racing for an expired lease serialize on its row, and the second one sees it taken.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param name      the name of the lease
+     * @param owner     the node asking for it
+     * @param ttlMillis how long the lease lasts unless it is renewed
+     * @return {@code 1} if {@code owner} holds the lease, {@code 0} if another node does
+     */
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_leases (name, owner, expires) " +
+            "VALUES (?1, ?2, clock_timestamp() + CAST(?3 AS double precision) * interval '1 millisecond') " +
+            "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, expires = EXCLUDED.expires " +
+            "WHERE scheduler_leases.owner = EXCLUDED.owner OR scheduler_leases.expires < clock_timestamp()", nativeQuery = true)
+    int acquire(String name, String owner, long ttlMillis);
+
+    /**
+     * Gives a lease up, so another node can take it without waiting for it to expire.
+     * It requires that the calling method is executed within a transactional context.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM scheduler_leases WHERE name = ?1 AND owner = ?2", nativeQuery = true)
+    void release(String name, String owner);
+
+    /**
+     * Retrieves the owners of the unexpired leases whose name starts with {@code prefix}, in order.
+     */
+    @Query(value = "SELECT owner FROM scheduler_leases WHERE name LIKE ?1 || '%' AND expires > clock_timestamp() " +
+            "ORDER BY owner", nativeQuery = true)
+    List<String> findLiveOwners(String prefix);
+
+    /**
+     * Deletes the expired leases whose name starts with {@code prefix}.
+     * It requires that the calling method is executed within a transactional context.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM scheduler_leases WHERE name LIKE ?1 || '%' AND expires < clock_timestamp()", nativeQuery = true)
+    int deleteExpired(String prefix);
+
+    /**
+     * Takes or extends a lease whoever holds it. Used for flags the leader publishes to the other
+     * nodes, which a new leader must be able to overwrite before the old value expires.
+     * It requires that the calling method is executed within a transactional context.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_leases (name, owner, expires) " +
+            "VALUES (?1, ?2, clock_timestamp() + CAST(?3 AS double precision) * interval '1 millisecond') " +
+            "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, expires = EXCLUDED.expires", nativeQuery = true)
+    void put(String name, String owner, long ttlMillis);
+
+    /**
+     * Deletes a lease whoever holds it.
+     * It requires that the calling method is executed within a transactional context.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM scheduler_leases WHERE name = ?1", nativeQuery = true)
+    void remove(String name);
+
+    /**
+     * Tells whether a lease is held and unexpired.
+     */
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM scheduler_leases WHERE name = ?1 AND expires > clock_timestamp())", nativeQuery = true)
+    boolean isLive(String name);
+}
@@ -0,0 +1,33 @@
+package acc.library.reservation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Check;
+import acc.library.reservation.type.QuotaTier;
+
+import java.util.UUID;
+
+/**
+ * Number of ACTIVE reservations currently held by a user, kept next to the user's tier so the
+ * reservation limit can be enforced with a single conditional increment instead of a COUNT.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "user_quota")
+@Check(constraints = "active_reservations >= 0")
+public class UserQuotas {
+    @Id
+    @Column(name = "userId", unique = true, nullable = false)
+    private UUID userId;
+
+    @Column(name = "activeReservations", nullable = false)
+    private Long activeReservations;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tier", nullable = false)
+    private QuotaTier tier;
+}
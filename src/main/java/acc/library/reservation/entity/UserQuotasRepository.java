@@ -0,0 +1,107 @@
+package acc.library.reservation.entity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository interface for managing {@link UserQuotas} entities. The counters are only changed
+ * through the atomic statements below, so concurrent reservations of the same user can never
+ * push the count past the limit of the user's tier.
+ */
+@Repository
+public interface UserQuotasRepository extends JpaRepository<UserQuotas, UUID> {
+    /**
+     * Increments the active reservations of a user by 1, but only while the user is below the limit
+     * of their tier. Users without a quota row get one in the STANDARD tier.
+     *
+     * @param userId        the unique identifier of the user
+     * @param standardLimit the maximum number of active reservations of the STANDARD tier
+     * @param premiumLimit  the maximum number of active reservations of the PREMIUM tier
+     * @param staffLimit    the maximum number of active reservations of the STAFF tier
+     * @return the number of inserted or updated rows; {@code 0} if the user already reached the limit
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_quota (user_id, active_reservations, tier) SELECT ?1, 1, 'STANDARD' WHERE ?2 > 0 " +
+            "ON CONFLICT (user_id) DO UPDATE SET active_reservations = user_quota.active_reservations + 1 " +
+            "WHERE user_quota.active_reservations < CASE user_quota.tier WHEN 'PREMIUM' THEN ?3 WHEN 'STAFF' THEN ?4 ELSE ?2 END",
+            nativeQuery = true)
+    int incrementActiveReservations(UUID userId, long standardLimit, long premiumLimit, long staffLimit);
+
+    /**
+     * Decrements the active reservations of a user by {@code count}, never going below zero.
+     *
+     * @param userId the unique identifier of the user
+     * @param count  the number of reservations that were closed
+     */
+    @Modifying
+    @Query(value = "UPDATE user_quota SET active_reservations = GREATEST(active_reservations - ?2, 0) WHERE user_id = ?1",
+            nativeQuery = true)
+    void decrementActiveReservations(UUID userId, long count);
+
+    /**
+     * Retrieves the next batch of user ids, in id order, strictly after {@code after}.
+     *
+     * @param after the last user id of the previous batch
+     * @param limit the maximum number of ids to return
+     * @return up to {@code limit} user ids
+     */
+    @Query(value = "SELECT user_id FROM user_quota WHERE user_id > ?1 ORDER BY user_id LIMIT ?2", nativeQuery = true)
+    List<UUID> findUserIdsAfter(UUID after, int limit);
+
+    /**
+     * Locks the quota rows of the given users, in user id order, until the end of the transaction.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param userIds the unique identifiers of the users
+     * @return the ids of the locked rows
+     */
+    @Query(value = "SELECT user_id FROM user_quota WHERE user_id IN (?1) ORDER BY user_id FOR UPDATE", nativeQuery = true)
+    List<UUID> lockQuotas(Collection<UUID> userIds);
+
+    /**
+     * Recomputes the active reservations of the given users from the reservations table,
+     * updating only the counters that drifted. The quota rows must already be locked by
+     * {@link #lockQuotas(Collection)}, so the count is read from a snapshot taken after every
+     * reservation that changed them has committed.
+     *
+     * @param userIds the unique identifiers of the users to reconcile
+     * @return the number of counters that were corrected
+     */
+    @Modifying
+    @Query(value = "UPDATE user_quota SET active_reservations = counted.active FROM (" +
+            "SELECT q.user_id, (SELECT COUNT(r.id) FROM reservations r WHERE r.user_id = q.user_id AND r.status = 'ACTIVE') AS active " +
+            "FROM user_quota q WHERE q.user_id IN (?1)) counted " +
+            "WHERE user_quota.user_id = counted.user_id AND user_quota.active_reservations <> counted.active", nativeQuery = true)
+    int reconcileActiveReservations(Collection<UUID> userIds);
+
+    /**
+     * Creates the missing quota rows of users that hold active reservations, in the STANDARD tier
+     * and with a zero count that the reconciliation then corrects.
+     *
+     * @return the number of created rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_quota (user_id, active_reservations, tier) " +
+            "SELECT DISTINCT r.user_id, 0, 'STANDARD' FROM reservations r WHERE r.status = 'ACTIVE' " +
+            "AND NOT EXISTS (SELECT 1 FROM user_quota q WHERE q.user_id = r.user_id) " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertMissingQuotas();
+
+    /**
+     * Sets the tier of a user. Users without a quota row get one with no active reservations,
+     * which the reconciliation corrects if the user already holds some.
+     *
+     * @param userId the unique identifier of the user
+     * @param tier   the name of the new {@link acc.library.reservation.type.QuotaTier}
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_quota (user_id, active_reservations, tier) VALUES (?1, 0, ?2) " +
+            "ON CONFLICT (user_id) DO UPDATE SET tier = EXCLUDED.tier", nativeQuery = true)
+    void upsertTier(UUID userId, String tier);
+}
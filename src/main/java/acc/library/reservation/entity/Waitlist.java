@@ -0,0 +1,42 @@
+package acc.library.reservation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A user waiting for a copy of a book. The generated id doubles as the position in the
+ * book's FIFO queue, so the head of a queue is found through the {@code (bookId, id)} index.
+ * Entries are only inserted by {@link WaitlistRepository#enqueue}, which takes its id straight
+ * from {@code waitlist_seq}; ids handed out in blocks to Hibernate would not follow the join order.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "waitlist",
+        uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_book_user", columnNames = {"bookId", "userId"}),
+        indexes = @Index(name = "idx_waitlist_book_position", columnList = "bookId, id"))
+public class Waitlist {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "waitlist_seq")
+    @SequenceGenerator(name = "waitlist_seq", sequenceName = "waitlist_seq", allocationSize = 50)
+    @Column(name = "id", unique = true, nullable = false)
+    private Long id;
+
+    @Column(name = "bookId", nullable = false)
+    private UUID bookId;
+
+    @Column(name = "userId", nullable = false)
+    private UUID userId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created")
+    @CreationTimestamp
+    private Date created;
+}
@@ -0,0 +1,28 @@
+package acc.library.reservation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Check;
+
+import java.util.UUID;
+
+/**
+ * Number of users waiting for a book, kept next to the book's {@link Waitlist} entries so the place
+ * of a new waiter is read from a single row instead of counting the queue ahead of it.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "waitlist_queue")
+@Check(constraints = "length >= 0")
+public class WaitlistQueue {
+    @Id
+    @Column(name = "bookId", unique = true, nullable = false)
+    private UUID bookId;
+
+    @Column(name = "length", nullable = false)
+    private Long length;
+}
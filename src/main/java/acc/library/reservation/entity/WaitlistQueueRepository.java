@@ -0,0 +1,39 @@
+package acc.library.reservation.entity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Repository interface for managing {@link WaitlistQueue} counters. Every entry added to or removed
+ * from a waitlist changes the counter of its book in the same transaction, with one single-row
+ * statement, so the cost does not grow with the length of the queue.
+ */
+@Repository
+public interface WaitlistQueueRepository extends JpaRepository<WaitlistQueue, UUID> {
+    /**
+     * Counts a new waiter at the end of the waitlist of a book.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param bookId the unique identifier of the book
+     * @return the length of the waitlist including the new waiter, which is the waiter's place in it
+     */
+    @Query(value = "INSERT INTO waitlist_queue (book_id, length) VALUES (?1, 1) " +
+            "ON CONFLICT (book_id) DO UPDATE SET length = waitlist_queue.length + 1 RETURNING length", nativeQuery = true)
+    long append(UUID bookId);
+
+    /**
+     * Takes waiters that were handed a copy or left the waitlist of a book off its length.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param bookId the unique identifier of the book
+     * @param count  the number of entries removed from the waitlist
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query(value = "UPDATE waitlist_queue SET length = length - ?2 WHERE book_id = ?1", nativeQuery = true)
+    int shorten(UUID bookId, int count);
+}
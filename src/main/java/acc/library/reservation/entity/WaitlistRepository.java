@@ -0,0 +1,56 @@
+package acc.library.reservation.entity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository interface for managing {@link Waitlist} entries. Queue operations are single
+ * index-backed statements, and the head of a queue is taken with {@code FOR UPDATE SKIP LOCKED},
+ * so several application nodes can allocate copies of the same book without handing one
+ * waiter two copies or blocking each other.
+ */
+@Repository
+public interface WaitlistRepository extends JpaRepository<Waitlist, Long> {
+    /**
+     * Adds a user to the end of the waitlist of a book, unless the user is already waiting for it.
+     *
+     * @param bookId  the unique identifier of the book
+     * @param userId  the unique identifier of the user
+     * @param created the time the user joined the waitlist
+     * @return the id of the new entry, or empty if the user was already waiting
+     */
+    @Query(value = "INSERT INTO waitlist (id, book_id, user_id, created) VALUES (nextval('waitlist_seq'), ?1, ?2, ?3) " +
+            "ON CONFLICT (book_id, user_id) DO NOTHING RETURNING id", nativeQuery = true)
+    Optional<Long> enqueue(UUID bookId, UUID userId, Date created);
+
+    /**
+     * Removes the head of the waitlist of a book. Entries locked by a concurrent allocation are
+     * skipped, so each waiter is handed at most one copy.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param bookId the unique identifier of the book
+     * @return the user that was at the head of the waitlist, or empty if nobody is waiting
+     */
+    @Query(value = "DELETE FROM waitlist WHERE id = (" +
+            "SELECT id FROM waitlist WHERE book_id = ?1 ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING user_id", nativeQuery = true)
+    Optional<UUID> dequeue(UUID bookId);
+
+    /**
+     * Removes a user from the waitlist of a book, if the user is waiting for it.
+     * It requires that the calling method is executed within a transactional context.
+     *
+     * @param bookId the unique identifier of the book
+     * @param userId the unique identifier of the user
+     * @return the number of removed entries, {@code 0} or {@code 1}
+     */
+    @Modifying
+    @Query(value = "DELETE FROM waitlist WHERE book_id = ?1 AND user_id = ?2", nativeQuery = true)
+    int remove(UUID bookId, UUID userId);
+}
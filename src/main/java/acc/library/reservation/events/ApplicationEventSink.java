@@ -0,0 +1,25 @@
+package acc.library.reservation.events;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.dto.ReservationEventDTO;
+
+import java.util.List;
+
+/**
+ * Publishes reservation events as Spring application events, for in-process listeners
+ * declared with {@code @EventListener} on a {@link ReservationEventDTO} parameter.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.outbox.sink.listener.enabled", havingValue = "true", matchIfMissing = true)
+public class ApplicationEventSink implements ReservationEventSink {
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(List<ReservationEventDTO> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,253 @@
+package acc.library.reservation.events;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import acc.library.reservation.datasource.RoutingContext;
+import acc.library.reservation.dto.BookAvailabilityDTO;
+import acc.library.reservation.dto.ReservationEventDTO;
+import acc.library.reservation.entity.BookCopiesView;
+import acc.library.reservation.entity.BooksRepository;
+import acc.library.reservation.inventory.InventoryService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes the available copies of books to subscribed clients as Server-Sent Events.
+ * <p>
+ * Books are marked as changed by the reservation events every node tails from the outbox, so
+ * clients see the changes made on any node. A catalog import marks every watched book on the
+ * node that ran it only; subscribers on other nodes see its copies with the next reservation
+ * event of the book. In striped inventory mode the copies sent are those in the {@code books}
+ * table plus the ones leased by this node, so the copies leased or given back by other nodes
+ * show with their next reservation event too. Marks on the same book coalesce, so every tick of
+ * {@code books.availability.tick-ms} reads the copies of all changed books with one query
+ * and queues at most one update per book for each subscriber, however many reservations
+ * happened in between. Updates are sent on the application task executor, at most one task
+ * per subscriber at a time; a subscriber that is still busy with earlier updates only gets the
+ * newest copies of each book, the older ones are dropped. Subscribers are asynchronous
+ * requests, not threads, and books nobody is watching are never marked.
+ */
+@Component
+public class BookAvailabilityPublisher implements ReservationEventSink {
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Autowired
+    ObjectProvider<InventoryService> inventoryService;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    TaskExecutor taskExecutor;
+
+    @Value("${books.availability.timeout-ms:1800000}")
+    long timeout;
+
+    private final Map<UUID, Set<Subscriber>> subscribersByBook = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Set<UUID> changed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Opens a stream of the available copies of the given books. The current copies are sent
+     * first, then one update per book and tick while the copies keep changing.
+     *
+     * @param bookIds the unique identifiers of the books to watch
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(Set<UUID> bookIds) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout), Set.copyOf(bookIds));
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        subscriber.bookIds.forEach(bookId ->
+                subscribersByBook.computeIfAbsent(bookId, id -> ConcurrentHashMap.newKeySet()).add(subscriber));
+
+        //changes published from now on are marked, so the snapshot can only be followed by newer copies
+        currentCopies(subscriber.bookIds).forEach(subscriber::offer);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Marks the books of the published reservation events as changed.
+     */
+    @Override
+    public void publish(List<ReservationEventDTO> events) {
+        events.forEach(event -> {
+            if (subscribersByBook.containsKey(event.getBookId())) {
+                changed.add(event.getBookId());
+            }
+        });
+    }
+
+    /**
+     * Marks every watched book as changed, for changes to the {@code books} table that do not go
+     * through reservations, such as a catalog import. Only the subscribers of this node are updated.
+     */
+    public void markAllChanged() {
+        changed.addAll(subscribersByBook.keySet());
+    }
+
+    @Scheduled(fixedDelayString = "${books.availability.tick-ms:1000}")
+    public void tick() {
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        List<UUID> bookIds = new ArrayList<>();
+        for (Iterator<UUID> iterator = changed.iterator(); iterator.hasNext(); ) {
+            bookIds.add(iterator.next());
+            iterator.remove();
+        }
+
+        currentCopies(bookIds).forEach(availability -> {
+            Set<Subscriber> watching = subscribersByBook.get(availability.getBookId());
+            if (watching != null) {
+                watching.forEach(subscriber -> subscriber.offer(availability));
+            }
+        });
+    }
+
+    /**
+     * Sends a comment to every subscriber, so connections closed by the client or a proxy are
+     * detected and released even for books that do not change.
+     */
+    @Scheduled(fixedDelayString = "${books.availability.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::offerHeartbeat);
+    }
+
+    private List<BookAvailabilityDTO> currentCopies(Collection<UUID> bookIds) {
+        InventoryService inventory = inventoryService.getIfAvailable();
+        List<BookAvailabilityDTO> availability = new ArrayList<>(bookIds.size());
+        //read the primary, a replica may not have applied the change that triggered this update yet
+        for (BookCopiesView book : RoutingContext.onPrimary(() -> booksRepository.findByIdIn(bookIds))) {
+            long held = inventory == null ? 0 : inventory.heldCopies(book.getId());
+            availability.add(new BookAvailabilityDTO(book.getId(), book.getCopies() + held));
+        }
+        return availability;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriber.bookIds.forEach(bookId -> subscribersByBook.computeIfPresent(bookId, (id, watching) -> {
+            watching.remove(subscriber);
+            return watching.isEmpty() ? null : watching;
+        }));
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        private final Set<UUID> bookIds;
+
+        /**
+         * The newest copies of each book not sent yet; bounded by the number of books watched.
+         */
+        private final Map<UUID, BookAvailabilityDTO> pending = new LinkedHashMap<>();
+
+        private boolean heartbeatPending;
+
+        private boolean sending;
+
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter, Set<UUID> bookIds) {
+            this.emitter = emitter;
+            this.bookIds = bookIds;
+        }
+
+        private void offer(BookAvailabilityDTO availability) {
+            boolean start;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                pending.put(availability.getBookId(), availability);
+                start = !sending;
+                sending = true;
+            }
+            if (start) {
+                taskExecutor.execute(this::drain);
+            }
+        }
+
+        private void offerHeartbeat() {
+            boolean start;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                heartbeatPending = true;
+                start = !sending;
+                sending = true;
+            }
+            if (start) {
+                taskExecutor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Sends the pending updates until there are none left. Only one task runs it at a time.
+         */
+        private void drain() {
+            while (true) {
+                List<BookAvailabilityDTO> updates;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (closed || (pending.isEmpty() && !heartbeatPending)) {
+                        sending = false;
+                        return;
+                    }
+                    updates = new ArrayList<>(pending.values());
+                    pending.clear();
+                    heartbeat = heartbeatPending && updates.isEmpty();
+                    heartbeatPending = false;
+                }
+
+                try {
+                    for (BookAvailabilityDTO availability : updates) {
+                        emitter.send(SseEmitter.event()
+                                .name("availability")
+                                .data(availability, MediaType.APPLICATION_JSON));
+                    }
+                    if (heartbeat) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close(e);
+                    return;
+                }
+            }
+        }
+
+        private void close(Exception e) {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            unsubscribe(this);
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package acc.library.reservation.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.dto.ReservationEventDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends reservation events to {@code reservation.outbox.sink.file.path}, one JSON object
+ * per line. It is not one of the tailed {@link ReservationEventSink}s: the leader writes the
+ * file on its own cursor, so every event is written once and a failed write is retried (see
+ * {@code FileEventSinkScheduler}). Each batch is forced to disk before it counts as written.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.outbox.sink.file.enabled", havingValue = "true")
+public class FileEventSink {
+    /**
+     * Name of the cursor of this sink in {@code event_sink_cursors}.
+     */
+    public static final String CURSOR = "file";
+
+    private static final int SCAN_CHUNK = 8192;
+
+    private final ObjectWriter writer;
+
+    private final ObjectReader reader;
+
+    private final FileChannel output;
+
+    public FileEventSink(ObjectMapper objectMapper,
+                         @Value("${reservation.outbox.sink.file.path:reservation-events.ndjson}") Path path) throws IOException {
+        this.writer = objectMapper.writerFor(ReservationEventDTO.class);
+        this.reader = objectMapper.readerFor(ReservationEventDTO.class);
+        this.output = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Returns the sequence of the last event in the file, 0 if it holds none. A last line cut
+     * short by a crash is removed first, so its event is written again in full.
+     */
+    public synchronized long lastSequence() throws IOException {
+        long lastNewline = lastNewlineBefore(output.size());
+        output.truncate(lastNewline + 1);
+        if (lastNewline < 0) {
+            return 0;
+        }
+
+        long lineStart = lastNewlineBefore(lastNewline) + 1;
+        ByteBuffer line = ByteBuffer.allocate((int) (lastNewline - lineStart));
+        while (line.hasRemaining()) {
+            output.read(line, lineStart + line.position());
+        }
+        ReservationEventDTO event = reader.readValue(line.array());
+        return event.getSequence();
+    }
+
+    /**
+     * Appends one batch of events and forces it to disk.
+     *
+     * @throws IOException if the batch could not be written; part of it may be in the file
+     */
+    public synchronized void write(List<ReservationEventDTO> events) throws IOException {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        for (ReservationEventDTO event : events) {
+            batch.write(writer.writeValueAsBytes(event));
+            batch.write('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        long position = output.size();
+        while (buffer.hasRemaining()) {
+            position += output.write(buffer, position);
+        }
+        output.force(false);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+
+    private long lastNewlineBefore(long end) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(SCAN_CHUNK);
+        long chunkEnd = end;
+        while (chunkEnd > 0) {
+            long chunkStart = Math.max(0, chunkEnd - SCAN_CHUNK);
+            chunk.clear().limit((int) (chunkEnd - chunkStart));
+            while (chunk.hasRemaining()) {
+                output.read(chunk, chunkStart + chunk.position());
+            }
+            for (int i = chunk.limit() - 1; i >= 0; i--) {
+                if (chunk.get(i) == '\n') {
+                    return chunkStart + i;
+                }
+            }
+            chunkEnd = chunkStart;
+        }
+        return -1;
+    }
+}
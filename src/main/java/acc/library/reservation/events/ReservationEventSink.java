@@ -0,0 +1,18 @@
+package acc.library.reservation.events;
+
+import acc.library.reservation.dto.ReservationEventDTO;
+
+import java.util.List;
+
+/**
+ * Destination of the reservation events published by the outbox.
+ * <p>
+ * Every node tails the published events and hands them to its own sinks. Each call receives
+ * one batch in sequence order, without gaps, and is made from the tailing thread, so
+ * implementations must not block for long. A sink that fails to deliver should not throw:
+ * its consumers catch up from the outbox by sequence. Durable destinations that must receive
+ * every event once, such as the {@link FileEventSink}, keep their own cursor instead.
+ */
+public interface ReservationEventSink {
+    void publish(List<ReservationEventDTO> events);
+}
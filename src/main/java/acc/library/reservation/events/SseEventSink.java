@@ -0,0 +1,197 @@
+package acc.library.reservation.events;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import acc.library.reservation.datasource.RoutingContext;
+import acc.library.reservation.dto.ReservationEventDTO;
+import acc.library.reservation.entity.ReservationEventsRepository;
+import acc.library.reservation.mapper.ReservationEventMapper;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams reservation events to HTTP clients as Server-Sent Events. The id of each SSE event
+ * is the event sequence, so a client that reconnects with {@code Last-Event-ID} first receives
+ * the events it missed from the outbox and then the live ones, without gaps or duplicates.
+ * A client that is more than {@code reservation.outbox.sse.max-replay} events behind receives
+ * that many and the stream is completed, so it reconnects from where the replay stopped.
+ * <p>
+ * Events are sent on the application task executor, never on the outbox tailer: each client
+ * has a buffer of up to {@code reservation.outbox.sse.buffer-size} events and at most one
+ * sending task. A client that falls further behind is disconnected, and resumes from its
+ * {@code Last-Event-ID}, instead of slowing down the others.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.outbox.sink.sse.enabled", havingValue = "true", matchIfMissing = true)
+public class SseEventSink implements ReservationEventSink {
+    @Autowired
+    ReservationEventsRepository reservationEventsRepository;
+
+    @Autowired
+    ReservationEventMapper reservationEventMapper;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    TaskExecutor taskExecutor;
+
+    @Value("${reservation.outbox.sse.timeout-ms:1800000}")
+    long timeout;
+
+    @Value("${reservation.outbox.sse.max-replay:10000}")
+    int maxReplay;
+
+    @Value("${reservation.outbox.sse.buffer-size:1000}")
+    int bufferSize;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Opens a stream of the events published after the given sequence.
+     *
+     * @param lastSequence the sequence of the last event the client has seen, 0 to only receive new events
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(long lastSequence) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout), lastSequence);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+
+        //live events are buffered from now on and sent after the replay, which skips what it already covered
+        subscribers.add(subscriber);
+        taskExecutor.execute(() -> {
+            if (lastSequence > 0) {
+                //a lagging replica could miss events that were already sent live to other subscribers
+                List<ReservationEventDTO> missed = new ArrayList<>();
+                RoutingContext.onPrimary(() -> reservationEventsRepository.findBySequenceGreaterThanOrderBySequenceAsc(lastSequence, Limit.of(maxReplay)))
+                        .forEach(event -> missed.add(reservationEventMapper.mapReservationEventEntityToDTO(event)));
+
+                if (!subscriber.send(missed)) {
+                    return;
+                }
+                if (missed.size() == maxReplay) {
+                    subscriber.close();
+                    return;
+                }
+            }
+            subscriber.drain();
+        });
+        return subscriber.emitter;
+    }
+
+    @Override
+    public void publish(List<ReservationEventDTO> events) {
+        subscribers.forEach(subscriber -> subscriber.offer(events));
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        private final Queue<ReservationEventDTO> pending = new ArrayDeque<>();
+
+        /**
+         * Whether a task is sending to this client; the first one is the replay.
+         */
+        private boolean sending = true;
+
+        private boolean closed;
+
+        private long lastSequence;
+
+        private Subscriber(SseEmitter emitter, long lastSequence) {
+            this.emitter = emitter;
+            this.lastSequence = lastSequence;
+        }
+
+        private void offer(List<ReservationEventDTO> events) {
+            boolean overflow;
+            boolean start;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                overflow = pending.size() + events.size() > bufferSize;
+                start = !overflow && !sending;
+                if (!overflow) {
+                    pending.addAll(events);
+                    sending = true;
+                }
+            }
+
+            if (overflow) {
+                //too slow to keep up; it reconnects from its Last-Event-ID
+                close();
+            } else if (start) {
+                taskExecutor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Sends the buffered events until the buffer is empty. Only one task runs it at a time.
+         */
+        private void drain() {
+            while (true) {
+                List<ReservationEventDTO> events;
+                synchronized (this) {
+                    if (closed || pending.isEmpty()) {
+                        sending = false;
+                        return;
+                    }
+                    events = new ArrayList<>(pending);
+                    pending.clear();
+                }
+
+                if (!send(events)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean send(List<ReservationEventDTO> events) {
+            try {
+                for (ReservationEventDTO event : events) {
+                    if (event.getSequence() <= lastSequence) {
+                        continue;
+                    }
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getSequence()))
+                            .name(event.getType().name())
+                            .data(event, MediaType.APPLICATION_JSON));
+                    lastSequence = event.getSequence();
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                //the client went away; it resumes from its Last-Event-ID when it comes back
+                synchronized (this) {
+                    closed = true;
+                    pending.clear();
+                }
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            subscribers.remove(this);
+            emitter.complete();
+        }
+    }
+}
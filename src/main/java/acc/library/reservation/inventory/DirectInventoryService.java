@@ -0,0 +1,51 @@
+package acc.library.reservation.inventory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.entity.BooksRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Default {@link InventoryService} that updates the {@code books} row directly on every call.
+ * Single copies are taken with one conditional UPDATE; several copies are taken by locking
+ * the row first and then decrementing by as many copies as are left.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.inventory.mode", havingValue = "direct", matchIfMissing = true)
+public class DirectInventoryService implements InventoryService {
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Override
+    public int reserve(UUID bookId, int requested) {
+        if (requested <= 0) {
+            return 0;
+        }
+
+        if (requested == 1) {
+            return booksRepository.decrementBookCopies(bookId);
+        }
+
+        long available = booksRepository.lockBookCopies(bookId).orElse(0L);
+        int granted = (int) Math.min(available, requested);
+        if (granted > 0) {
+            booksRepository.decrementBookCopies(bookId, granted);
+        }
+        return granted;
+    }
+
+    @Override
+    public Optional<Long> lockAvailable(UUID bookId) {
+        return booksRepository.lockBookCopies(bookId);
+    }
+
+    @Override
+    public void release(UUID bookId, int count) {
+        if (count > 0) {
+            booksRepository.incrementBookCopies(bookId, count);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package acc.library.reservation.inventory;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps track of the available copies of each book. Implementations decide where the
+ * authoritative counter lives; callers only take and give back copies. Both operations
+ * must be called from within a transaction, and implementations must honour its outcome:
+ * copies taken by a rolled back transaction are given back, copies released by a rolled
+ * back transaction are not.
+ * <p>
+ * Transactions that change several kinds of rows lock them in one global order, so they
+ * cannot deadlock each other: the {@code books} rows first, then the {@code waitlist} rows,
+ * then the {@code user_quota} rows, each kind in id order.
+ */
+public interface InventoryService {
+    /**
+     * Takes up to {@code requested} copies of a book.
+     *
+     * @param bookId    the unique identifier of the book
+     * @param requested the number of copies wanted
+     * @return the number of copies actually taken, between {@code 0} and {@code requested}
+     */
+    int reserve(UUID bookId, int requested);
+
+    /**
+     * Locks the {@code books} row of a book until the end of the transaction and returns the
+     * copies available to reservations. Used by paths that must take the book lock before
+     * touching the waitlist or the user quota.
+     *
+     * @param bookId the unique identifier of the book
+     * @return the available copies, or empty if the book does not exist
+     */
+    Optional<Long> lockAvailable(UUID bookId);
+
+    /**
+     * Gives back {@code count} copies of a book.
+     *
+     * @param bookId the unique identifier of the book
+     * @param count  the number of copies to give back
+     */
+    void release(UUID bookId, int count);
+
+    /**
+     * Returns the copies of a book that this node holds outside of {@code books.copies},
+     * which are available to reservations on top of the copies stored in the table.
+     *
+     * @param bookId the unique identifier of the book
+     * @return the number of copies held in memory; {@code 0} for engines that keep no copies
+     */
+    default long heldCopies(UUID bookId) {
+        return 0;
+    }
+}
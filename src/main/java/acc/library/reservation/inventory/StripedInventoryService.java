@@ -0,0 +1,239 @@
+package acc.library.reservation.inventory;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import acc.library.reservation.entity.BooksRepository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link InventoryService} that keeps the copies of hot books in striped in-memory counters,
+ * so concurrent reservations of the same title do not queue on the {@code books} row lock.
+ * <p>
+ * Copies are leased from the database in blocks of {@code reservation.inventory.lease-size}.
+ * A reservation that finds the stripes empty leases in its own transaction: it locks the
+ * {@code books} row, decrements it by the copies it needs plus one lease, keeps its copies and
+ * puts the rest of the lease into the stripes once its transaction commits. A rolled back
+ * reservation thus leaves both the row and the stripes as they were, and no request ever needs
+ * a second pooled connection. Later reservations are served from the stripes without touching
+ * the database. Released copies go back to the stripes once the releasing transaction commits,
+ * and any surplus above one lease is written back to {@code books.copies} by a periodic flush.
+ * <p>
+ * The database always counts leased copies as taken, so a crash can only lose copies that
+ * were leased but not handed out; it can never over-allocate. Select this engine with
+ * {@code reservation.inventory.mode=striped}. It assumes it is the only writer of
+ * {@code books.copies} for the books it has leased, i.e. a single application node.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.inventory.mode", havingValue = "striped")
+public class StripedInventoryService implements InventoryService {
+    private static final Logger log = LoggerFactory.getLogger(StripedInventoryService.class);
+
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2);
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Value("${reservation.inventory.lease-size:16}")
+    long leaseSize;
+
+    /**
+     * Transaction of the write-back of surplus copies, which runs on the flush thread and at
+     * shutdown, never inside a request transaction.
+     */
+    private final TransactionTemplate flushTransaction;
+
+    private final Map<UUID, BookTokens> tokens = new ConcurrentHashMap<>();
+
+    public StripedInventoryService(PlatformTransactionManager transactionManager) {
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public int reserve(UUID bookId, int requested) {
+        BookTokens book = tokens.computeIfAbsent(bookId, id -> new BookTokens());
+        int fromStripes = 0;
+        while (fromStripes < requested && book.take()) {
+            fromStripes++;
+        }
+
+        if (fromStripes > 0) {
+            int taken = fromStripes;
+            afterCompletion(status -> {
+                if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                    book.put(taken);
+                }
+            });
+        }
+
+        return fromStripes < requested ? fromStripes + lease(bookId, book, requested - fromStripes) : fromStripes;
+    }
+
+    @Override
+    public void release(UUID bookId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        BookTokens book = tokens.computeIfAbsent(bookId, id -> new BookTokens());
+        afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                book.put(count);
+            }
+        });
+    }
+
+    @Override
+    public Optional<Long> lockAvailable(UUID bookId) {
+        return booksRepository.lockBookCopies(bookId).map(copies -> copies + heldCopies(bookId));
+    }
+
+    @Override
+    public long heldCopies(UUID bookId) {
+        BookTokens book = tokens.get(bookId);
+        return book == null ? 0 : book.available();
+    }
+
+    /**
+     * Writes copies held above one lease back to the {@code books} table, one UPDATE per book.
+     * A book whose UPDATE fails keeps its copies until the next flush.
+     */
+    @Scheduled(fixedDelayString = "${reservation.inventory.flush-interval-ms:500}")
+    public void flush() {
+        tokens.forEach((bookId, book) -> giveBack(bookId, book, book.drainAbove(leaseSize)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tokens.forEach((bookId, book) -> giveBack(bookId, book, book.drainAbove(0)));
+    }
+
+    /**
+     * Leases copies in the caller's transaction, which keeps the row locked until it ends.
+     *
+     * @return the copies handed to the caller, at most {@code missing}
+     */
+    private int lease(UUID bookId, BookTokens book, int missing) {
+        long available = booksRepository.lockBookCopies(bookId).orElse(0L);
+        long leased = Math.min(available, missing + leaseSize);
+        if (leased == 0) {
+            return 0;
+        }
+        booksRepository.decrementBookCopies(bookId, leased);
+
+        int granted = (int) Math.min(leased, missing);
+        long surplus = leased - granted;
+        if (surplus > 0) {
+            afterCompletion(status -> {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    book.put(surplus);
+                }
+            });
+        }
+        return granted;
+    }
+
+    private void giveBack(UUID bookId, BookTokens book, long surplus) {
+        if (surplus == 0) {
+            return;
+        }
+        try {
+            flushTransaction.executeWithoutResult(status -> booksRepository.incrementBookCopies(bookId, surplus));
+        } catch (RuntimeException e) {
+            //keep the copies in memory and retry on the next flush; the other books are still flushed
+            book.put(surplus);
+            log.error("Could not give back {} copies of book {}, keeping them held", surplus, bookId, e);
+        }
+    }
+
+    private static void afterCompletion(CompletionCallback callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.completed(TransactionSynchronization.STATUS_COMMITTED);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.completed(status);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface CompletionCallback {
+        void completed(int status);
+    }
+
+    /**
+     * Copies of a single book held by this node, spread over several counters so that
+     * threads reserving the same book mostly update different cache lines.
+     */
+    private static final class BookTokens {
+        private final AtomicLong[] stripes = new AtomicLong[STRIPES];
+
+        private BookTokens() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new AtomicLong();
+            }
+        }
+
+        private boolean take() {
+            int start = probe();
+            for (int i = 0; i < STRIPES; i++) {
+                AtomicLong stripe = stripes[(start + i) & (STRIPES - 1)];
+                long current;
+                while ((current = stripe.get()) > 0) {
+                    if (stripe.compareAndSet(current, current - 1)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void put(long count) {
+            stripes[probe()].addAndGet(count);
+        }
+
+        private long available() {
+            long sum = 0;
+            for (AtomicLong stripe : stripes) {
+                sum += stripe.get();
+            }
+            return sum;
+        }
+
+        private long drainAbove(long keep) {
+            long surplus = available() - keep;
+            long drained = 0;
+            for (int i = 0; i < STRIPES && drained < surplus; i++) {
+                AtomicLong stripe = stripes[i];
+                long current;
+                while ((current = stripe.get()) > 0 && drained < surplus) {
+                    long take = Math.min(current, surplus - drained);
+                    if (stripe.compareAndSet(current, current - take)) {
+                        drained += take;
+                    }
+                }
+            }
+            return drained;
+        }
+
+        private static int probe() {
+            return (int) Thread.currentThread().threadId() & (STRIPES - 1);
+        }
+    }
+}
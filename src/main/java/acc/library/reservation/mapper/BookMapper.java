@@ -3,6 +3,7 @@ package acc.library.reservation.mapper;
 import org.springframework.stereotype.Component;
 import acc.library.reservation.dto.BookInfoDTO;
 import acc.library.reservation.entity.Books;
+import acc.library.reservation.entity.ReservationBookView;
 
 @Component
 public class BookMapper {
@@ -13,4 +14,12 @@ public class BookMapper {
         bookInfoDTO.setTitle(book.getTitle());
         return bookInfoDTO;
     }
+
+    public BookInfoDTO mapBookViewToDTO(ReservationBookView view) {
+        BookInfoDTO bookInfoDTO = new BookInfoDTO();
+        bookInfoDTO.setAuthor(view.getAuthor());
+        bookInfoDTO.setIsbn(view.getIsbn());
+        bookInfoDTO.setTitle(view.getTitle());
+        return bookInfoDTO;
+    }
 }
@@ -0,0 +1,30 @@
+package acc.library.reservation.mapper;
+
+import org.springframework.stereotype.Component;
+import acc.library.reservation.dto.ReservationEventDTO;
+import acc.library.reservation.entity.ReservationEvents;
+import acc.library.reservation.entity.ReservationTransitionView;
+import acc.library.reservation.type.ReservationEventType;
+
+@Component
+public class ReservationEventMapper {
+    public ReservationEvents mapReservationToEventEntity(ReservationEventType type, ReservationTransitionView reservation) {
+        ReservationEvents entity = new ReservationEvents();
+        entity.setType(type);
+        entity.setReservationId(reservation.getId());
+        entity.setUserId(reservation.getUserId());
+        entity.setBookId(reservation.getBookId());
+        return entity;
+    }
+
+    public ReservationEventDTO mapReservationEventEntityToDTO(ReservationEvents event) {
+        ReservationEventDTO dto = new ReservationEventDTO();
+        dto.setSequence(event.getSequence());
+        dto.setType(event.getType());
+        dto.setReservationId(event.getReservationId());
+        dto.setUserId(event.getUserId());
+        dto.setBookId(event.getBookId());
+        dto.setCreated(event.getCreated());
+        return dto;
+    }
+}
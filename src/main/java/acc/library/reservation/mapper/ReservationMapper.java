@@ -2,12 +2,17 @@ package acc.library.reservation.mapper;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import acc.library.reservation.dto.BookInfoDTO;
 import acc.library.reservation.dto.ReservationDTO;
 import acc.library.reservation.dto.ReservationInfoDTO;
-import acc.library.reservation.entity.Books;
+import acc.library.reservation.entity.ReservationBookView;
+import acc.library.reservation.entity.ReservationView;
 import acc.library.reservation.entity.Reservations;
+import acc.library.reservation.type.ReservationField;
 import acc.library.reservation.type.ReservationStatus;
 
+import java.util.Set;
+
 @Component
 public class ReservationMapper {
     @Autowired
@@ -21,14 +26,42 @@ public class ReservationMapper {
         return entity;
     }
 
-    public ReservationInfoDTO mapReservationInfoEntityToDTO(Reservations reservation, Books book) {
+    public ReservationInfoDTO mapReservationInfoEntityToDTO(Reservations reservation, BookInfoDTO book) {
         ReservationInfoDTO dto = new ReservationInfoDTO();
         dto.setUserId(reservation.getUserId());
-        dto.setBook(bookMapper.mapBookEntityToDTO(book));
+        dto.setBook(book);
         dto.setCreated(reservation.getCreated());
         dto.setStatus(reservation.getStatus());
         return dto;
     }
 
+    public ReservationInfoDTO mapReservationBookViewToDTO(ReservationBookView view) {
+        ReservationInfoDTO dto = new ReservationInfoDTO();
+        dto.setUserId(view.getUserId());
+        dto.setBook(bookMapper.mapBookViewToDTO(view));
+        dto.setCreated(view.getCreated());
+        dto.setStatus(ReservationStatus.valueOf(view.getStatus()));
+        return dto;
+    }
 
+    /**
+     * Maps only the selected fields of a reservation; the others are left {@code null} and are
+     * not serialized. The book is only mapped when the view was loaded with it.
+     */
+    public ReservationInfoDTO mapReservationViewToDTO(ReservationView view, Set<ReservationField> fields) {
+        ReservationInfoDTO dto = new ReservationInfoDTO();
+        if (fields.contains(ReservationField.USER_ID)) {
+            dto.setUserId(view.getUserId());
+        }
+        if (fields.contains(ReservationField.BOOK) && view instanceof ReservationBookView bookView) {
+            dto.setBook(bookMapper.mapBookViewToDTO(bookView));
+        }
+        if (fields.contains(ReservationField.CREATED)) {
+            dto.setCreated(view.getCreated());
+        }
+        if (fields.contains(ReservationField.STATUS)) {
+            dto.setStatus(ReservationStatus.valueOf(view.getStatus()));
+        }
+        return dto;
+    }
 }
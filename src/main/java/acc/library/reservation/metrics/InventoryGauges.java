@@ -0,0 +1,45 @@
+package acc.library.reservation.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.entity.BooksRepository;
+import acc.library.reservation.entity.ReservationsRepository;
+import acc.library.reservation.type.ReservationStatus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gauges of the number of active reservations and of books without copies left. The values
+ * are counted on a fixed schedule rather than on every scrape, so a scrape never queries the
+ * database.
+ */
+@Component
+public class InventoryGauges {
+    @Autowired
+    ReservationsRepository reservationsRepository;
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    private final AtomicLong activeReservations = new AtomicLong();
+
+    private final AtomicLong booksOutOfStock = new AtomicLong();
+
+    public InventoryGauges(MeterRegistry registry) {
+        Gauge.builder("reservation.active", activeReservations, AtomicLong::get)
+                .description("Reservations currently ACTIVE")
+                .register(registry);
+        Gauge.builder("books.out.of.stock", booksOutOfStock, AtomicLong::get)
+                .description("Books with no copies left")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.metrics.gauge-refresh-ms:30000}")
+    public void refresh() {
+        activeReservations.set(reservationsRepository.countByStatus(ReservationStatus.ACTIVE));
+        booksOutOfStock.set(booksRepository.countByCopies(0L));
+    }
+}
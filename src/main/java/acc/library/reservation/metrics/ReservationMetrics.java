@@ -0,0 +1,118 @@
+package acc.library.reservation.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the reservation lifecycle. All meters are registered up front and looked
+ * up by enum ordinal, so recording on the request path allocates nothing. Tags only carry the
+ * stage or outcome names below; user and book ids are never used as tags.
+ */
+@Component
+public class ReservationMetrics {
+    /**
+     * Stages of {@code ReservationService.create}, timed as {@code reservation.create.stage}.
+     */
+    public enum CreateStage {
+        QUOTA_CHECK("quota_check"),
+        INSERT("insert"),
+        COPY_DECREMENT("copy_decrement"),
+        BOOK_LOOKUP("book_lookup");
+
+        private final String tag;
+
+        CreateStage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Outcomes of {@code ReservationService.create}, counted as {@code reservation.create}.
+     */
+    public enum CreateOutcome {
+        CREATED("created"),
+        BOOK_NOT_FOUND("book_not_found"),
+        NO_COPIES("no_copies"),
+        QUOTA_EXCEEDED("quota_exceeded");
+
+        private final String tag;
+
+        CreateOutcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Timer[] stageTimers = new Timer[CreateStage.values().length];
+
+    private final Counter[] outcomeCounters = new Counter[CreateOutcome.values().length];
+
+    private final Counter canceled;
+
+    private final Counter expired;
+
+    private final Timer expiryRun;
+
+    private final Counter eventsPublished;
+
+    public ReservationMetrics(MeterRegistry registry) {
+        for (CreateStage stage : CreateStage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("reservation.create.stage")
+                    .description("Time spent in each stage of a reservation")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        for (CreateOutcome outcome : CreateOutcome.values()) {
+            outcomeCounters[outcome.ordinal()] = Counter.builder("reservation.create")
+                    .description("Reservation requests by outcome")
+                    .tag("outcome", outcome.tag)
+                    .register(registry);
+        }
+        canceled = Counter.builder("reservation.canceled")
+                .description("Reservations canceled")
+                .register(registry);
+        expired = Counter.builder("reservation.expired")
+                .description("Reservations expired by the expiry job")
+                .register(registry);
+        expiryRun = Timer.builder("reservation.expiry.run")
+                .description("Duration of the expiry job runs")
+                .register(registry);
+        eventsPublished = Counter.builder("reservation.events.published")
+                .description("Reservation events published by the outbox relay")
+                .register(registry);
+    }
+
+    /**
+     * Records the time elapsed in a stage of a reservation.
+     *
+     * @param stage      the stage that just finished
+     * @param startNanos the {@link System#nanoTime()} at which the stage started
+     * @return the current {@link System#nanoTime()}, to be used as the start of the next stage
+     */
+    public long recordStage(CreateStage stage, long startNanos) {
+        long now = System.nanoTime();
+        stageTimers[stage.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void recordOutcome(CreateOutcome outcome) {
+        outcomeCounters[outcome.ordinal()].increment();
+    }
+
+    public void recordCanceled(int count) {
+        canceled.increment(count);
+    }
+
+    public void recordExpiryRun(int count, long startNanos) {
+        expired.increment(count);
+        expiryRun.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEventsPublished(int count) {
+        eventsPublished.increment(count);
+    }
+}
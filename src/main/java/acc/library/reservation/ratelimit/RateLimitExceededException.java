@@ -0,0 +1,29 @@
+package acc.library.reservation.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Rejects a request with 429 and tells the client, in {@code Retry-After}, how many seconds
+ * to wait before the limit lets it through again.
+ */
+public class RateLimitExceededException extends ResponseStatusException {
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,136 @@
+package acc.library.reservation.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.dto.ReservationDTO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits reservation attempts per user and per book with one {@link TokenBucket} each, checked
+ * before the request reaches the service, so rejected attempts cost no database access.
+ * Every item of a batch and every waitlist join is one attempt. An attempt takes its tokens
+ * from all the buckets it touches or from none: tokens taken before another bucket rejected
+ * the attempt are given back.
+ * <p>
+ * Buckets live in Caffeine caches bounded by {@code reservation.rate-limit.max-keys} and are
+ * dropped after {@code reservation.rate-limit.idle-eviction} without requests; a bucket idle
+ * that long is full again anyway. When more keys than the bound are active, size eviction can
+ * also drop buckets in use, which then start full again, so a flood of distinct ids loosens the
+ * limits of the evicted keys; {@code max-keys} bounds the memory at that cost.
+ * The rates and bursts are set with {@code reservation.rate-limit.user.*} and
+ * {@code reservation.rate-limit.book.*}, and {@code reservation.rate-limit.enabled=false} turns
+ * limiting off. Limits apply per application node.
+ */
+@Component
+public class ReservationRateLimiter {
+    private final boolean enabled;
+
+    private final Limit userLimit;
+
+    private final Limit bookLimit;
+
+    private final Cache<UUID, TokenBucket> userBuckets;
+
+    private final Cache<UUID, TokenBucket> bookBuckets;
+
+    public ReservationRateLimiter(@Value("${reservation.rate-limit.enabled:true}") boolean enabled,
+                                  @Value("${reservation.rate-limit.user.requests-per-second:1}") double userRate,
+                                  @Value("${reservation.rate-limit.user.burst:5}") int userBurst,
+                                  @Value("${reservation.rate-limit.book.requests-per-second:50}") double bookRate,
+                                  @Value("${reservation.rate-limit.book.burst:100}") int bookBurst,
+                                  @Value("${reservation.rate-limit.max-keys:100000}") long maxKeys,
+                                  @Value("${reservation.rate-limit.idle-eviction:10m}") Duration idleEviction) {
+        this.enabled = enabled;
+        this.userLimit = new Limit(userRate, userBurst);
+        this.bookLimit = new Limit(bookRate, bookBurst);
+        this.userBuckets = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleEviction).build();
+        this.bookBuckets = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleEviction).build();
+    }
+
+    /**
+     * Takes one token from the bucket of the user and one from the bucket of the book.
+     *
+     * @param userId the user making the reservation
+     * @param bookId the book being reserved
+     * @throws RateLimitExceededException if either bucket is empty
+     */
+    public void check(UUID userId, UUID bookId) throws RateLimitExceededException {
+        check(Map.of(userId, 1), Map.of(bookId, 1));
+    }
+
+    /**
+     * Takes one token per item of a batch from the bucket of its user and from the bucket of
+     * its book. Items without a user or a book are skipped; the service rejects them.
+     *
+     * @param reservations the reservation requests of the batch
+     * @throws RateLimitExceededException if any bucket has not enough tokens left
+     */
+    public void checkAll(List<ReservationDTO> reservations) throws RateLimitExceededException {
+        if (reservations == null) {
+            return;
+        }
+
+        Map<UUID, Integer> attemptsByUser = new HashMap<>();
+        Map<UUID, Integer> attemptsByBook = new HashMap<>();
+        reservations.forEach(reservation -> {
+            if (reservation != null && reservation.getUserId() != null && reservation.getBookId() != null) {
+                attemptsByUser.merge(reservation.getUserId(), 1, Integer::sum);
+                attemptsByBook.merge(reservation.getBookId(), 1, Integer::sum);
+            }
+        });
+        check(attemptsByUser, attemptsByBook);
+    }
+
+    private void check(Map<UUID, Integer> attemptsByUser, Map<UUID, Integer> attemptsByBook) throws RateLimitExceededException {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        List<Taken> taken = new ArrayList<>();
+        attemptsByUser.forEach((userId, attempts) ->
+                acquire(userBuckets, userId, attempts, userLimit, now, taken, "Too many reservation attempts by user " + userId + "."));
+        attemptsByBook.forEach((bookId, attempts) ->
+                acquire(bookBuckets, bookId, attempts, bookLimit, now, taken, "Too many reservation attempts for this book."));
+    }
+
+    private static void acquire(Cache<UUID, TokenBucket> buckets, UUID key, int attempts, Limit limit, long now,
+                                List<Taken> taken, String reason) {
+        TokenBucket bucket = buckets.get(key, id -> new TokenBucket(now));
+        long costNanos = limit.intervalNanos * attempts;
+        long waitNanos = bucket.tryAcquire(now, costNanos, limit.burstNanos);
+        if (waitNanos > 0) {
+            //the attempt is rejected, so it costs none of the buckets it already went through
+            taken.forEach(Taken::refund);
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new RateLimitExceededException(reason, retryAfterSeconds);
+        }
+        taken.add(new Taken(bucket, costNanos));
+    }
+
+    private record Taken(TokenBucket bucket, long costNanos) {
+        private void refund() {
+            bucket.refund(costNanos);
+        }
+    }
+
+    private static final class Limit {
+        private final long intervalNanos;
+
+        private final long burstNanos;
+
+        private Limit(double requestsPerSecond, int burst) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+            this.burstNanos = intervalNanos * Math.max(1, burst);
+        }
+    }
+}
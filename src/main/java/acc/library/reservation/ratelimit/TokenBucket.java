@@ -0,0 +1,48 @@
+package acc.library.reservation.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as the generic cell rate algorithm: the whole state is
+ * the theoretical arrival time of the next request, updated with a compare-and-set. A request
+ * is allowed when taking one token would not push that time more than {@code burst} tokens
+ * ahead of now, and tokens come back at one per emission interval.
+ */
+final class TokenBucket {
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes the tokens that refill in {@code costNanos}, all or none.
+     *
+     * @param nowNanos   the current {@link System#nanoTime()}
+     * @param costNanos  the time it takes to refill the tokens taken, one emission interval per token
+     * @param burstNanos the time it takes to refill the whole bucket
+     * @return {@code 0} if the tokens were taken, otherwise the nanoseconds until they are available
+     */
+    long tryAcquire(long nowNanos, long costNanos, long burstNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + costNanos;
+            long ahead = next - nowNanos;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back tokens taken by {@link #tryAcquire} for a request that was rejected by another bucket.
+     *
+     * @param costNanos the cost the tokens were taken with
+     */
+    void refund(long costNanos) {
+        theoreticalArrival.addAndGet(-costNanos);
+    }
+}
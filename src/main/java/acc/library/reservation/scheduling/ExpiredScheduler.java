@@ -1,23 +1,113 @@
 package acc.library.reservation.scheduling;
 
-import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import acc.library.reservation.entity.ReservationsRepository;
+import acc.library.reservation.metrics.ReservationMetrics;
+import acc.library.reservation.service.ReservationService;
+import acc.library.reservation.service.SchedulerLeaseService;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
 
+/**
+ * Periodically expires active reservations that are older than {@code reservation.expiry.ttl}.
+ * Each run drains the backlog in chunks of {@code reservation.expiry.batch-size} reservations,
+ * each chunk in its own short transaction, so no run holds locks on the whole table.
+ * <p>
+ * When several nodes run, only the leader expires a backlog smaller than
+ * {@code reservation.expiry.shard-threshold}; a larger one is split by book id hash across all
+ * live nodes, each node expiring its own shard. Only the leader counts the backlog, and it
+ * publishes whether to shard as the {@value #SHARDED_FLAG} flag, which it keeps raised while it
+ * drains and which lapses after two intervals if the leader dies. Nodes that briefly disagree on
+ * the membership or the flag can pick the same rows, which is harmless: locked rows are skipped
+ * and only ACTIVE rows expire.
+ */
 @Component
 public class ExpiredScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ExpiredScheduler.class);
+
+    static final String SHARDED_FLAG = "expiry-sharded";
+
     @Autowired
-    ReservationsRepository reservationsRepository;
+    ReservationService reservationService;
+
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Autowired
+    ReservationMetrics reservationMetrics;
+
+    @Value("${reservation.expiry.ttl:7d}")
+    Duration ttl;
+
+    @Value("${reservation.expiry.batch-size:1000}")
+    int batchSize;
+
+    @Value("${reservation.expiry.shard-threshold:10000}")
+    int shardThreshold;
 
-    @Scheduled(fixedRate = 7, timeUnit = TimeUnit.DAYS)
-    @Transactional
+    @Value("${reservation.expiry.interval-ms:60000}")
+    long intervalMillis;
+
+    @Scheduled(fixedDelayString = "${reservation.expiry.interval-ms:60000}")
     public void execute() {
-        reservationsRepository.updateAllReservationStatus();
+        long start = System.nanoTime();
+        Date cutoff = new Date(System.currentTimeMillis() - ttl.toMillis());
+
+        boolean sharded;
+        if (schedulerLeaseService.isLeader()) {
+            sharded = reservationService.countExpirable(cutoff, shardThreshold) >= shardThreshold;
+            schedulerLeaseService.publishFlag(SHARDED_FLAG, sharded, flagTtl());
+        } else {
+            sharded = schedulerLeaseService.isFlagRaised(SHARDED_FLAG);
+        }
+
+        int shardCount = 1;
+        int shard = 0;
+        if (sharded) {
+            List<String> nodes = schedulerLeaseService.liveNodes();
+            shard = nodes.indexOf(schedulerLeaseService.nodeId());
+            if (shard < 0) {
+                return;
+            }
+            shardCount = nodes.size();
+        } else if (!schedulerLeaseService.isLeader()) {
+            return;
+        }
+
+        int processed = 0;
+        int expired;
+        do {
+            expired = reservationService.expireReservations(cutoff, batchSize, shardCount, shard);
+            processed += expired;
+        } while (expired == batchSize && keepsShare(shardCount));
+
+        reservationMetrics.recordExpiryRun(processed, start);
+
+        if (processed > 0) {
+            log.info("Expired {} reservations that were opened for more than {}{}", processed, ttl,
+                    shardCount > 1 ? " in shard " + shard + " of " + shardCount : "");
+        }
+    }
+
+    /**
+     * Tells whether this node still holds its share of the backlog. A leader draining a sharded
+     * backlog also keeps the flag raised, so the other nodes keep draining theirs.
+     */
+    private boolean keepsShare(int shardCount) {
+        if (shardCount == 1) {
+            return schedulerLeaseService.isLeader();
+        }
+        schedulerLeaseService.publishFlag(SHARDED_FLAG, true, flagTtl());
+        return !schedulerLeaseService.liveNodes().isEmpty();
+    }
 
-        System.out.println("Expiring All Reservations that are opened for more than 7 days");
+    private Duration flagTtl() {
+        return Duration.ofMillis(intervalMillis).multipliedBy(2);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package acc.library.reservation.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.datasource.RoutingContext;
+import acc.library.reservation.dto.ReservationEventDTO;
+import acc.library.reservation.events.FileEventSink;
+import acc.library.reservation.service.ReservationEventService;
+import acc.library.reservation.service.SchedulerLeaseService;
+
+import java.util.List;
+
+/**
+ * Writes the published reservation events to the {@link FileEventSink}, in batches of
+ * {@code reservation.outbox.batch-size} events. Only the node holding the scheduler leader lease
+ * writes, so each event is appended once; with several nodes the file path should be on storage
+ * the nodes share. The sequence of the last written event is saved after every batch, and a new
+ * leader resumes after the later of that cursor and the last event in the file, so a batch
+ * written just before a crash is not written twice. A failed write is logged and retried from
+ * the same event on the next run.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.outbox.sink.file.enabled", havingValue = "true")
+public class FileEventSinkScheduler {
+    private static final Logger log = LoggerFactory.getLogger(FileEventSinkScheduler.class);
+
+    @Autowired
+    FileEventSink fileEventSink;
+
+    @Autowired
+    ReservationEventService reservationEventService;
+
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Value("${reservation.outbox.batch-size:500}")
+    int batchSize;
+
+    private long lastSequence = -1;
+
+    @Scheduled(fixedDelayString = "${reservation.outbox.tail-interval-ms:200}")
+    public void execute() {
+        if (!schedulerLeaseService.isLeader()) {
+            lastSequence = -1;
+            return;
+        }
+
+        try {
+            if (lastSequence < 0) {
+                long saved = RoutingContext.onPrimary(() -> reservationEventService.findSinkCursor(FileEventSink.CURSOR));
+                lastSequence = Math.max(saved, fileEventSink.lastSequence());
+            }
+
+            List<ReservationEventDTO> events;
+            do {
+                long after = lastSequence;
+                events = RoutingContext.onPrimary(() -> reservationEventService.findAfter(after, batchSize));
+                if (events.isEmpty()) {
+                    return;
+                }
+
+                fileEventSink.write(events);
+                long written = events.get(events.size() - 1).getSequence();
+                reservationEventService.saveSinkCursor(FileEventSink.CURSOR, written);
+                lastSequence = written;
+            } while (events.size() == batchSize && schedulerLeaseService.isLeader());
+        } catch (Exception e) {
+            log.error("Failed to write reservation events after sequence {} to the file", lastSequence, e);
+            //resume from the cursor and the file, whichever of the two got further
+            lastSequence = -1;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package acc.library.reservation.scheduling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.service.IdempotencyService;
+import acc.library.reservation.service.SchedulerLeaseService;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Deletes idempotency keys older than {@code reservation.idempotency.ttl} in chunks of
+ * {@code reservation.idempotency.cleanup-batch-size}, each chunk in its own transaction.
+ * Only the node holding the scheduler leader lease runs it.
+ */
+@Component
+public class IdempotencyKeyCleanupScheduler {
+    @Autowired
+    IdempotencyService idempotencyService;
+
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Value("${reservation.idempotency.ttl:24h}")
+    Duration ttl;
+
+    @Value("${reservation.idempotency.cleanup-batch-size:5000}")
+    int batchSize;
+
+    @Scheduled(fixedDelayString = "${reservation.idempotency.cleanup-interval-ms:600000}")
+    public void execute() {
+        if (!schedulerLeaseService.isLeader()) {
+            return;
+        }
+
+        Date cutoff = new Date(System.currentTimeMillis() - ttl.toMillis());
+
+        int deleted;
+        do {
+            deleted = idempotencyService.deleteExpired(cutoff, batchSize);
+        } while (deleted == batchSize && schedulerLeaseService.isLeader());
+    }
+}
@@ -0,0 +1,44 @@
+package acc.library.reservation.scheduling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.metrics.ReservationMetrics;
+import acc.library.reservation.service.ReservationEventService;
+import acc.library.reservation.service.SchedulerLeaseService;
+
+/**
+ * Numbers the reservation events written to the outbox. Each run drains the outbox in
+ * batches of {@code reservation.outbox.batch-size} events, each batch in its own transaction.
+ * Only the node holding the scheduler leader lease relays, which keeps the advisory lock of
+ * the relay uncontended; every node hands the numbered events to its own sinks with the
+ * {@link OutboxTailScheduler}.
+ */
+@Component
+public class OutboxRelayScheduler {
+    @Autowired
+    ReservationEventService reservationEventService;
+
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Autowired
+    ReservationMetrics reservationMetrics;
+
+    @Value("${reservation.outbox.batch-size:500}")
+    int batchSize;
+
+    @Scheduled(fixedDelayString = "${reservation.outbox.relay-interval-ms:200}")
+    public void execute() {
+        if (!schedulerLeaseService.isLeader()) {
+            return;
+        }
+
+        int relayed;
+        do {
+            relayed = reservationEventService.relay(batchSize);
+            reservationMetrics.recordEventsPublished(relayed);
+        } while (relayed == batchSize && schedulerLeaseService.isLeader());
+    }
+}
@@ -0,0 +1,55 @@
+package acc.library.reservation.scheduling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.datasource.RoutingContext;
+import acc.library.reservation.dto.ReservationEventDTO;
+import acc.library.reservation.events.ReservationEventSink;
+import acc.library.reservation.service.ReservationEventService;
+
+import java.util.List;
+
+/**
+ * Hands the reservation events published by the relay to the sinks of this node. Every node
+ * runs it, whichever node relays, so the clients connected to any node receive every event.
+ * It starts after the last event published when the node started, reads the primary, which
+ * already has every numbered event, and resumes after the last sequence it handed over, in
+ * batches of {@code reservation.outbox.batch-size} events.
+ */
+@Component
+public class OutboxTailScheduler {
+    @Autowired
+    ReservationEventService reservationEventService;
+
+    @Autowired
+    List<ReservationEventSink> sinks;
+
+    @Value("${reservation.outbox.batch-size:500}")
+    int batchSize;
+
+    private long lastSequence = -1;
+
+    @Scheduled(fixedDelayString = "${reservation.outbox.tail-interval-ms:200}")
+    public void execute() {
+        if (lastSequence < 0) {
+            lastSequence = RoutingContext.onPrimary(reservationEventService::findLastSequence);
+            return;
+        }
+
+        List<ReservationEventDTO> events;
+        do {
+            long after = lastSequence;
+            events = RoutingContext.onPrimary(() -> reservationEventService.findAfter(after, batchSize));
+            if (events.isEmpty()) {
+                return;
+            }
+
+            for (ReservationEventSink sink : sinks) {
+                sink.publish(events);
+            }
+            lastSequence = events.get(events.size() - 1).getSequence();
+        } while (events.size() == batchSize);
+    }
+}
@@ -0,0 +1,63 @@
+package acc.library.reservation.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.entity.UserQuotasRepository;
+import acc.library.reservation.service.SchedulerLeaseService;
+import acc.library.reservation.service.UserQuotaService;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Periodically fixes drift between the {@code user_quota} counters and the ACTIVE rows of the
+ * reservations table, walking the users in id order in batches of
+ * {@code reservation.quota.reconcile-batch-size}, each batch in its own transaction.
+ * Only the node holding the scheduler leader lease runs it.
+ */
+@Component
+public class QuotaReconciliationScheduler {
+    private static final Logger log = LoggerFactory.getLogger(QuotaReconciliationScheduler.class);
+
+    private static final UUID FIRST_USER = new UUID(0, 0);
+
+    @Autowired
+    UserQuotaService userQuotaService;
+
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Autowired
+    UserQuotasRepository userQuotasRepository;
+
+    @Value("${reservation.quota.reconcile-batch-size:1000}")
+    int batchSize;
+
+    @Scheduled(fixedDelayString = "${reservation.quota.reconcile-interval-ms:3600000}",
+            initialDelayString = "${reservation.quota.reconcile-interval-ms:3600000}")
+    public void execute() {
+        if (!schedulerLeaseService.isLeader()) {
+            return;
+        }
+
+        int fixed = userQuotaService.insertMissingQuotas();
+
+        UUID after = FIRST_USER;
+        List<UUID> userIds;
+        do {
+            userIds = userQuotasRepository.findUserIdsAfter(after, batchSize);
+            fixed += userQuotaService.reconcile(userIds);
+            if (!userIds.isEmpty()) {
+                after = userIds.get(userIds.size() - 1);
+            }
+        } while (userIds.size() == batchSize && schedulerLeaseService.isLeader());
+
+        if (fixed > 0) {
+            log.info("Reconciled {} user reservation counters", fixed);
+        }
+    }
+}
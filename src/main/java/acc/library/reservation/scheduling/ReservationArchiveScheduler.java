@@ -0,0 +1,59 @@
+package acc.library.reservation.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.service.ReservationArchiveService;
+import acc.library.reservation.service.SchedulerLeaseService;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Moves canceled and expired reservations older than {@code reservation.archive.retention} to
+ * the archive table, in chunks of {@code reservation.archive.batch-size} rows, each chunk in its
+ * own transaction, and then drops the monthly partitions that were left empty.
+ * Only the node holding the scheduler leader lease runs it.
+ */
+@Component
+public class ReservationArchiveScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ReservationArchiveScheduler.class);
+
+    @Autowired
+    ReservationArchiveService reservationArchiveService;
+
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Value("${reservation.archive.retention:90d}")
+    Duration retention;
+
+    @Value("${reservation.archive.batch-size:5000}")
+    int batchSize;
+
+    @Scheduled(cron = "${reservation.archive.cron:0 30 3 * * *}")
+    public void execute() {
+        if (!schedulerLeaseService.isLeader()) {
+            return;
+        }
+
+        Date cutoff = new Date(System.currentTimeMillis() - retention.toMillis());
+
+        int archived = 0;
+        int moved;
+        do {
+            moved = reservationArchiveService.archiveClosedReservations(cutoff, batchSize);
+            archived += moved;
+        } while (moved == batchSize && schedulerLeaseService.isLeader());
+
+        int dropped = reservationArchiveService.dropEmptyPartitions(cutoff);
+
+        if (archived > 0 || dropped > 0) {
+            log.info("Archived {} reservations closed for more than {} and dropped {} empty partitions",
+                    archived, retention, dropped);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package acc.library.reservation.scheduling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.service.ReservationEventService;
+import acc.library.reservation.service.SchedulerLeaseService;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Deletes published reservation events older than {@code reservation.outbox.retention} in
+ * chunks of {@code reservation.outbox.prune-batch-size}, each chunk in its own transaction.
+ * Consumers further behind than the retention resume from the oldest event that is left.
+ * Only the node holding the scheduler leader lease runs it.
+ */
+@Component
+public class ReservationEventPruneScheduler {
+    @Autowired
+    ReservationEventService reservationEventService;
+
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Value("${reservation.outbox.retention:7d}")
+    Duration retention;
+
+    @Value("${reservation.outbox.prune-batch-size:5000}")
+    int batchSize;
+
+    @Scheduled(fixedDelayString = "${reservation.outbox.prune-interval-ms:600000}")
+    public void execute() {
+        if (!schedulerLeaseService.isLeader()) {
+            return;
+        }
+
+        Date cutoff = new Date(System.currentTimeMillis() - retention.toMillis());
+
+        int deleted;
+        do {
+            deleted = reservationEventService.deletePublishedBefore(cutoff, batchSize);
+        } while (deleted == batchSize && schedulerLeaseService.isLeader());
+    }
+}
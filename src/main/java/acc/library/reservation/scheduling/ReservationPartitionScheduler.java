@@ -0,0 +1,50 @@
+package acc.library.reservation.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.service.ReservationArchiveService;
+import acc.library.reservation.service.SchedulerLeaseService;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Creates the monthly partitions of the reservations table for the current month and the
+ * next {@code reservation.partitions.months-ahead} months, so new reservations never land in
+ * the default partition. Runs on the node holding the scheduler leader lease, shortly after
+ * startup, once the first lease renewal had a chance to elect it, and then every
+ * {@code reservation.partitions.interval-ms}.
+ */
+@Component
+public class ReservationPartitionScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ReservationPartitionScheduler.class);
+
+    @Autowired
+    ReservationArchiveService reservationArchiveService;
+
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Value("${reservation.partitions.months-ahead:3}")
+    int monthsAhead;
+
+    @Scheduled(fixedDelayString = "${reservation.partitions.interval-ms:86400000}",
+            initialDelayString = "${reservation.partitions.initial-delay-ms:5000}")
+    public void execute() {
+        if (!schedulerLeaseService.isLeader()) {
+            return;
+        }
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate monthStart = current.plusMonths(i).atDay(1);
+            if (reservationArchiveService.createPartition(monthStart)) {
+                log.info("Created the reservations partition of {}", current.plusMonths(i));
+            }
+        }
+    }
+}
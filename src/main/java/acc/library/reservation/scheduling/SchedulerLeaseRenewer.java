@@ -0,0 +1,28 @@
+package acc.library.reservation.scheduling;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.service.SchedulerLeaseService;
+
+/**
+ * Renews the scheduler leases of this node every {@code reservation.scheduler.lease-renew-interval}.
+ * It runs at a fixed rate, so a slow renewal does not push the next one back, and gives the
+ * leases up when the application shuts down.
+ */
+@Component
+public class SchedulerLeaseRenewer {
+    @Autowired
+    SchedulerLeaseService schedulerLeaseService;
+
+    @Scheduled(fixedRateString = "${reservation.scheduler.lease-renew-interval:2s}")
+    public void execute() {
+        schedulerLeaseService.renew();
+    }
+
+    @PreDestroy
+    public void release() {
+        schedulerLeaseService.release();
+    }
+}
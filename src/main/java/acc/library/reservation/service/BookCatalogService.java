@@ -0,0 +1,16 @@
+package acc.library.reservation.service;
+
+import org.springframework.stereotype.Service;
+import acc.library.reservation.dto.BookInfoDTO;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public interface BookCatalogService {
+    Optional<BookInfoDTO> findBookInfo(UUID bookId);
+
+    void evict(UUID bookId);
+
+    void evictAll();
+}
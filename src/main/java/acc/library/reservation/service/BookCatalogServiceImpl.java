@@ -0,0 +1,55 @@
+package acc.library.reservation.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import acc.library.reservation.dto.BookInfoDTO;
+import acc.library.reservation.entity.BooksRepository;
+import acc.library.reservation.mapper.BookMapper;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read-through cache of the catalog fields of a book (title, author and ISBN), which almost
+ * never change. The volatile {@code copies} counter is deliberately left out of the cached
+ * value, so reserving, canceling and expiring never have to touch the cache; only changes to
+ * the catalog itself need to evict entries.
+ * The cache is named {@value #CACHE_NAME}; its size bound, TTL and statistics are configured
+ * with {@code spring.cache.caffeine.spec}, and {@code spring.cache.type=none} turns it off.
+ * Returned {@link BookInfoDTO} instances are shared between callers and must not be modified.
+ */
+@Component
+public class BookCatalogServiceImpl implements BookCatalogService {
+    public static final String CACHE_NAME = "books";
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Autowired
+    BookMapper bookMapper;
+
+    /**
+     * Looks up the catalog fields of a book, loading them from the database on a cache miss.
+     * Missing books are not cached, so a book added later is found straight away.
+     *
+     * @param bookId the unique identifier of the book
+     * @return the catalog fields of the book, or empty if the book does not exist
+     */
+    @Override
+    @Cacheable(cacheNames = CACHE_NAME, unless = "#result == null")
+    public Optional<BookInfoDTO> findBookInfo(UUID bookId) {
+        return booksRepository.findById(bookId).map(bookMapper::mapBookEntityToDTO);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME)
+    public void evict(UUID bookId) {
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, allEntries = true)
+    public void evictAll() {
+    }
+}
@@ -0,0 +1,12 @@
+package acc.library.reservation.service;
+
+import org.springframework.stereotype.Service;
+import acc.library.reservation.dto.BookImportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Service
+public interface BookImportService {
+    BookImportDTO importCsv(InputStream csv) throws IOException;
+}
@@ -0,0 +1,172 @@
+package acc.library.reservation.service;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.dto.BookImportDTO;
+import acc.library.reservation.events.BookAvailabilityPublisher;
+
+import javax.sql.DataSource;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk import of the book catalog from CSV with the columns {@code title,author,isbn,copies}
+ * and a header line naming them.
+ * <p>
+ * The CSV is streamed straight into a temporary staging table with PostgreSQL {@code COPY},
+ * which parses it server side, and then merged into {@code books} with a single upsert on
+ * the ISBN. {@code copies} in the file is the number of copies the library owns: new books get
+ * all of them, and books already known get them minus their ACTIVE reservations, so a re-import
+ * corrects the counter instead of duplicating the book. The {@code books} table is locked for
+ * writes during the merge only, so reservations made meanwhile are counted exactly once.
+ * <p>
+ * Imports are rejected with {@code reservation.inventory.mode=striped}, where part of the
+ * copies of a book are leased into memory and the {@code books} counter alone does not tell
+ * how many copies are available, so the merge would count the leased copies twice.
+ */
+@Component
+public class BookImportServiceImpl implements BookImportService {
+    private static final Logger log = LoggerFactory.getLogger(BookImportServiceImpl.class);
+
+    private static final String CREATE_STAGING_TABLE = "CREATE TEMP TABLE books_import " +
+            "(title text, author text, isbn text, copies bigint) ON COMMIT DROP";
+
+    private static final String COPY_STAGING_TABLE = "COPY books_import (title, author, isbn, copies) " +
+            "FROM STDIN WITH (FORMAT csv, HEADER MATCH)";
+
+    private static final String MERGE_STAGING_TABLE = "WITH active AS (" +
+            "SELECT book_id, count(*) AS reserved FROM reservations WHERE status = 'ACTIVE' GROUP BY book_id), " +
+            "upserted AS (" +
+            "INSERT INTO books (id, title, author, isbn, copies) " +
+            "SELECT COALESCE(b.id, gen_random_uuid()), i.title, i.author, i.isbn, GREATEST(i.copies - COALESCE(a.reserved, 0), 0) " +
+            "FROM (SELECT DISTINCT ON (isbn) title, author, isbn, copies FROM books_import " +
+            "WHERE isbn IS NOT NULL AND copies IS NOT NULL ORDER BY isbn) i " +
+            "LEFT JOIN books b ON b.isbn = i.isbn " +
+            "LEFT JOIN active a ON a.book_id = b.id " +
+            "ON CONFLICT (isbn) DO UPDATE SET title = EXCLUDED.title, author = EXCLUDED.author, copies = EXCLUDED.copies " +
+            "RETURNING (xmax = 0) AS inserted) " +
+            "SELECT count(*) FILTER (WHERE inserted) AS inserted, count(*) FILTER (WHERE NOT inserted) AS updated FROM upserted";
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    BookCatalogService bookCatalogService;
+
+    @Autowired
+    BookAvailabilityPublisher bookAvailabilityPublisher;
+
+    @Value("${reservation.inventory.mode:direct}")
+    String inventoryMode;
+
+    @Value("${books.import.progress-interval-ms:5000}")
+    long progressIntervalMillis;
+
+    /**
+     * Imports a CSV catalog in a single transaction.
+     *
+     * @param csv the CSV content; it is read to the end but not closed
+     * @return the number of rows read, books inserted and updated, and the throughput
+     * @throws IOException             if reading the CSV fails
+     * @throws ResponseStatusException if the CSV is malformed or its header does not match,
+     *                                 or the inventory runs in striped mode
+     */
+    @Override
+    @Transactional
+    public BookImportDTO importCsv(InputStream csv) throws IOException {
+        if ("striped".equals(inventoryMode)) {
+            throw new ResponseStatusException(
+                    HttpStatus.CONFLICT, "Books cannot be imported while the inventory runs in striped mode.");
+        }
+
+        long start = System.nanoTime();
+
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+
+        long rows;
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            rows = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn(COPY_STAGING_TABLE, new ProgressInputStream(csv, start, progressIntervalMillis));
+        } catch (SQLException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Invalid CSV: " + e.getMessage());
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        //keep reservations from changing copies between counting them and writing the new copies
+        jdbcTemplate.execute("LOCK TABLE books IN SHARE ROW EXCLUSIVE MODE");
+        BookImportDTO result = jdbcTemplate.queryForObject(MERGE_STAGING_TABLE, (resultSet, rowNumber) ->
+                new BookImportDTO(rows, resultSet.getLong("inserted"), resultSet.getLong("updated"), 0, 0));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bookCatalogService.evictAll();
+                bookAvailabilityPublisher.markAllChanged();
+            }
+        });
+
+        long durationMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        result.setDurationMillis(durationMillis);
+        result.setRowsPerSecond(rows * 1000 / durationMillis);
+        return result;
+    }
+
+    /**
+     * Counts the lines read from the CSV and logs the progress every {@code intervalMillis}.
+     */
+    private static final class ProgressInputStream extends FilterInputStream {
+        private final long start;
+
+        private final long intervalNanos;
+
+        private long lines;
+
+        private long nextReport;
+
+        private ProgressInputStream(InputStream in, long start, long intervalMillis) {
+            super(in);
+            this.start = start;
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            this.nextReport = start + intervalNanos;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            for (int i = offset; i < offset + read; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(now - start));
+                log.info("Book import: read {} lines ({} lines/s)", lines, lines / seconds);
+                nextReport = now + intervalNanos;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package acc.library.reservation.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public interface IdempotencyService {
+    Optional<UUID> findCreated(UUID userId, String idempotencyKey, UUID bookId);
+
+    Optional<UUID> claim(UUID userId, String idempotencyKey, UUID bookId);
+
+    void complete(UUID userId, String idempotencyKey, UUID bookId, UUID reservationId);
+
+    int deleteExpired(Date cutoff, int limit);
+}
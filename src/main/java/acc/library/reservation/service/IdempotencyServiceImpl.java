@@ -0,0 +1,120 @@
+package acc.library.reservation.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.entity.IdempotencyKeys;
+import acc.library.reservation.entity.IdempotencyKeysRepository;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Deduplicates reservation requests that carry an {@code Idempotency-Key}.
+ * <p>
+ * Completed keys are kept in a Caffeine cache bounded by {@code reservation.idempotency.max-entries}
+ * and {@code reservation.idempotency.ttl}, so a retry that reaches the same node is answered without
+ * touching the database. Behind it, the {@code idempotency_keys} table is claimed in the transaction
+ * that creates the reservation, which deduplicates retries across nodes and restarts: a concurrent
+ * retry waits on the claim and then reads the reservation it produced, and a request that failed
+ * rolls its claim back, so retrying it tries again. Keys are scoped to the user, and reusing one for
+ * a different book is rejected.
+ */
+@Component
+public class IdempotencyServiceImpl implements IdempotencyService {
+    @Autowired
+    IdempotencyKeysRepository idempotencyKeysRepository;
+
+    private final Cache<String, CreatedReservation> created;
+
+    public IdempotencyServiceImpl(@Value("${reservation.idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${reservation.idempotency.max-entries:100000}") long maxEntries) {
+        this.created = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Looks up a completed key in memory only.
+     *
+     * @return the reservation created for the key, or empty if this node does not know the key
+     * @throws ResponseStatusException if the key was used for another book
+     */
+    @Override
+    public Optional<UUID> findCreated(UUID userId, String idempotencyKey, UUID bookId) {
+        CreatedReservation reservation = created.getIfPresent(scoped(userId, idempotencyKey));
+        if (reservation == null) {
+            return Optional.empty();
+        }
+        return Optional.of(reservation.matching(bookId));
+    }
+
+    /**
+     * Claims a key in the database. Must run in the transaction that creates the reservation.
+     *
+     * @return empty if the key was claimed and the reservation must be created,
+     * or the reservation already created for the key
+     * @throws ResponseStatusException if the key was used for another book
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<UUID> claim(UUID userId, String idempotencyKey, UUID bookId) {
+        String key = scoped(userId, idempotencyKey);
+        if (idempotencyKeysRepository.claim(key, userId, bookId, new Date()) == 1) {
+            return Optional.empty();
+        }
+
+        IdempotencyKeys existing = idempotencyKeysRepository.findById(key).get();
+        CreatedReservation reservation = new CreatedReservation(existing.getBookId(), existing.getReservationId());
+        created.put(key, reservation);
+        return Optional.of(reservation.matching(bookId));
+    }
+
+    /**
+     * Records the reservation created for a claimed key, and caches it once the transaction commits.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(UUID userId, String idempotencyKey, UUID bookId, UUID reservationId) {
+        String key = scoped(userId, idempotencyKey);
+        idempotencyKeysRepository.complete(key, reservationId);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                created.put(key, new CreatedReservation(bookId, reservationId));
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpired(Date cutoff, int limit) {
+        return idempotencyKeysRepository.deleteExpired(cutoff, limit);
+    }
+
+    private static String scoped(UUID userId, String idempotencyKey) {
+        return userId + ":" + idempotencyKey;
+    }
+
+    private record CreatedReservation(UUID bookId, UUID reservationId) {
+        private UUID matching(UUID requestedBookId) {
+            if (!bookId.equals(requestedBookId)) {
+                throw new ResponseStatusException(
+                        HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different reservation.");
+            }
+            return reservationId;
+        }
+    }
+}
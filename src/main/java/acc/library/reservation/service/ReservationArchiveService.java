@@ -0,0 +1,15 @@
+package acc.library.reservation.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+@Service
+public interface ReservationArchiveService {
+    boolean createPartition(LocalDate monthStart);
+
+    int archiveClosedReservations(Date cutoff, int limit);
+
+    int dropEmptyPartitions(Date cutoff);
+}
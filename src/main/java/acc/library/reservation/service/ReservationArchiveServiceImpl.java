@@ -0,0 +1,52 @@
+package acc.library.reservation.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import acc.library.reservation.entity.ReservationsRepository;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Maintenance of the partitioned reservations table: monthly partitions are created ahead of
+ * time, closed reservations past their retention are moved to {@code reservations_archive} in
+ * bounded chunks, and monthly partitions left empty by the archiver are dropped. Every method
+ * runs in its own short transaction.
+ */
+@Component
+public class ReservationArchiveServiceImpl implements ReservationArchiveService {
+    @Autowired
+    ReservationsRepository reservationsRepository;
+
+    /**
+     * Creates the monthly partition starting at the given day, if it does not exist yet.
+     *
+     * @param monthStart the first day of the month
+     * @return {@code true} if the partition was created
+     */
+    @Override
+    @Transactional
+    public boolean createPartition(LocalDate monthStart) {
+        return reservationsRepository.createMonthlyPartition(monthStart);
+    }
+
+    /**
+     * Archives one chunk of canceled and expired reservations created before the cutoff.
+     *
+     * @param cutoff closed reservations created before this instant are archived
+     * @param limit  the maximum number of reservations to archive in this chunk
+     * @return the number of reservations archived; less than {@code limit} once the backlog is drained
+     */
+    @Override
+    @Transactional
+    public int archiveClosedReservations(Date cutoff, int limit) {
+        return reservationsRepository.archiveClosedReservations(cutoff, limit);
+    }
+
+    @Override
+    @Transactional
+    public int dropEmptyPartitions(Date cutoff) {
+        return reservationsRepository.dropEmptyPartitions(cutoff);
+    }
+}
@@ -0,0 +1,29 @@
+package acc.library.reservation.service;
+
+import org.springframework.stereotype.Service;
+import acc.library.reservation.dto.ReservationEventDTO;
+import acc.library.reservation.entity.ReservationTransitionView;
+import acc.library.reservation.type.ReservationEventType;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Service
+public interface ReservationEventService {
+    void record(ReservationEventType type, ReservationTransitionView reservation);
+
+    void recordAll(ReservationEventType type, Collection<? extends ReservationTransitionView> reservations);
+
+    int relay(int limit);
+
+    List<ReservationEventDTO> findAfter(long sequence, int limit);
+
+    long findLastSequence();
+
+    int deletePublishedBefore(Date cutoff, int limit);
+
+    long findSinkCursor(String sink);
+
+    void saveSinkCursor(String sink, long sequence);
+}
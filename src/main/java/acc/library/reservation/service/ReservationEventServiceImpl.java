@@ -0,0 +1,160 @@
+package acc.library.reservation.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import acc.library.reservation.dto.ReservationEventDTO;
+import acc.library.reservation.entity.EventSinkCursors;
+import acc.library.reservation.entity.EventSinkCursorsRepository;
+import acc.library.reservation.entity.ReservationEvents;
+import acc.library.reservation.entity.ReservationEventsRepository;
+import acc.library.reservation.entity.ReservationTransitionView;
+import acc.library.reservation.mapper.ReservationEventMapper;
+import acc.library.reservation.type.ReservationEventType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Transactional outbox of reservation state changes.
+ * <p>
+ * Events are written to {@code reservation_events} in the transaction that changed the
+ * reservation, so an event exists if and only if the change was committed. The relay then
+ * numbers the oldest unpublished events with consecutive sequences. Relays are serialized with
+ * a transaction-scoped advisory lock, so sequences are assigned in commit order across nodes
+ * and a consumer that resumes after the last sequence it saw never skips an event. Every node
+ * tails the numbered events by sequence and hands them to its own sinks, and numbered events
+ * are deleted once they are older than the retention.
+ */
+@Component
+public class ReservationEventServiceImpl implements ReservationEventService {
+    /**
+     * Key of the advisory lock that serializes relays across application nodes.
+     */
+    private static final long RELAY_LOCK_KEY = 0x5245_5345_5256L;
+
+    @Autowired
+    ReservationEventsRepository reservationEventsRepository;
+
+    @Autowired
+    ReservationEventMapper reservationEventMapper;
+
+    @Autowired
+    EventSinkCursorsRepository eventSinkCursorsRepository;
+
+    /**
+     * Writes one event to the outbox. Must run in the transaction that changed the reservation.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ReservationEventType type, ReservationTransitionView reservation) {
+        reservationEventsRepository.save(reservationEventMapper.mapReservationToEventEntity(type, reservation));
+    }
+
+    /**
+     * Writes one event per reservation to the outbox. Must run in the transaction that changed the reservations.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(ReservationEventType type, Collection<? extends ReservationTransitionView> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        List<ReservationEvents> events = new ArrayList<>(reservations.size());
+        reservations.forEach(reservation -> events.add(reservationEventMapper.mapReservationToEventEntity(type, reservation)));
+        reservationEventsRepository.saveAll(events);
+    }
+
+    /**
+     * Numbers one batch of the oldest unpublished events, in the order they were written: by
+     * creation time, since the pooled ids of different nodes interleave, and by id within the
+     * same instant. Returns 0 without waiting if another node is relaying.
+     *
+     * @param limit the maximum number of events to number
+     * @return the number of events numbered; less than {@code limit} once the outbox is drained
+     */
+    @Override
+    @Transactional
+    public int relay(int limit) {
+        if (!reservationEventsRepository.tryAdvisoryXactLock(RELAY_LOCK_KEY)) {
+            return 0;
+        }
+
+        List<ReservationEvents> batch = reservationEventsRepository.findBySequenceIsNullOrderByCreatedAscIdAsc(Limit.of(limit));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        //the relay lock makes this node the only one assigning sequences until it commits
+        long sequence = reservationEventsRepository.findLastSequence();
+        for (ReservationEvents event : batch) {
+            event.setSequence(++sequence);
+        }
+
+        return batch.size();
+    }
+
+    /**
+     * Retrieves published events after a consumer cursor, in sequence order.
+     *
+     * @param sequence the sequence of the last event the consumer has seen, 0 to start from the beginning
+     * @param limit    the maximum number of events to return
+     * @return up to {@code limit} events with a sequence greater than {@code sequence}
+     */
+    @Override
+    public List<ReservationEventDTO> findAfter(long sequence, int limit) {
+        List<ReservationEventDTO> events = new ArrayList<>();
+        reservationEventsRepository.findBySequenceGreaterThanOrderBySequenceAsc(sequence, Limit.of(limit))
+                .forEach(event -> events.add(reservationEventMapper.mapReservationEventEntityToDTO(event)));
+        return events;
+    }
+
+    /**
+     * Returns the sequence of the last published event, 0 if none was published yet.
+     */
+    @Override
+    public long findLastSequence() {
+        return reservationEventsRepository.findLastSequence();
+    }
+
+    /**
+     * Deletes one batch of the oldest published events written before the cutoff. The last
+     * published event is always kept, so sequences keep growing after a prune.
+     *
+     * @param cutoff published events written before this instant are deleted
+     * @param limit  the maximum number of events to delete
+     * @return the number of events deleted
+     */
+    @Override
+    @Transactional
+    public int deletePublishedBefore(Date cutoff, int limit) {
+        return reservationEventsRepository.deletePublishedBefore(cutoff, limit);
+    }
+
+    /**
+     * Returns the sequence of the last event a durable sink has written, 0 if it has not written any.
+     *
+     * @param sink the name of the sink
+     */
+    @Override
+    public long findSinkCursor(String sink) {
+        return eventSinkCursorsRepository.findById(sink).map(EventSinkCursors::getSequence).orElse(0L);
+    }
+
+    /**
+     * Records the sequence of the last event a durable sink has written.
+     *
+     * @param sink     the name of the sink
+     * @param sequence the sequence of the last event written
+     */
+    @Override
+    @Transactional
+    public void saveSinkCursor(String sink, long sequence) {
+        eventSinkCursorsRepository.save(new EventSinkCursors(sink, sequence));
+    }
+}
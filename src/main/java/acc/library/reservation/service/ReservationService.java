@@ -3,20 +3,39 @@ package acc.library.reservation.service;
 import jakarta.validation.Valid;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.dto.BatchResultDTO;
 import acc.library.reservation.dto.ReservationDTO;
 import acc.library.reservation.dto.ReservationInfoDTO;
+import acc.library.reservation.dto.ReservationPageDTO;
+import acc.library.reservation.type.ReservationField;
 import acc.library.reservation.type.ReservationStatus;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public interface ReservationService {
     UUID create(@Valid ReservationDTO reservation) throws ResponseStatusException;
 
+    UUID create(@Valid ReservationDTO reservation, String idempotencyKey) throws ResponseStatusException;
+
     ReservationInfoDTO getReservationById(UUID reservationId) throws ResponseStatusException;
 
-    List<ReservationInfoDTO> getAllReservationsByUser(UUID userId);
+    ReservationPageDTO getAllReservationsByUser(UUID userId, String cursor, int limit, Set<ReservationField> fields);
 
     void cancelReservationStatus(UUID reservationId, ReservationStatus status);
+
+    List<BatchResultDTO> createAll(List<ReservationDTO> reservations);
+
+    List<BatchResultDTO> cancelAll(List<UUID> reservationIds);
+
+    int expireReservations(Date cutoff, int limit, int shardCount, int shard);
+
+    long countExpirable(Date cutoff, int limit);
+
+    long exportReservations(Date from, Date to, ReservationStatus status, OutputStream output) throws IOException;
 }
@@ -1,49 +1,151 @@
 package acc.library.reservation.service;
 
-import jakarta.transaction.Transactional;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.datasource.ReadYourWrites;
+import acc.library.reservation.dto.BatchResultDTO;
+import acc.library.reservation.dto.BookInfoDTO;
 import acc.library.reservation.dto.ReservationDTO;
 import acc.library.reservation.dto.ReservationInfoDTO;
-import acc.library.reservation.entity.Books;
-import acc.library.reservation.entity.BooksRepository;
+import acc.library.reservation.dto.ReservationPageDTO;
+import acc.library.reservation.entity.ReservationBookView;
+import acc.library.reservation.entity.ReservationTransition;
+import acc.library.reservation.entity.ReservationTransitionView;
+import acc.library.reservation.entity.ReservationView;
 import acc.library.reservation.entity.Reservations;
 import acc.library.reservation.entity.ReservationsRepository;
+import acc.library.reservation.inventory.InventoryService;
 import acc.library.reservation.mapper.ReservationMapper;
+import acc.library.reservation.metrics.ReservationMetrics;
+import acc.library.reservation.metrics.ReservationMetrics.CreateOutcome;
+import acc.library.reservation.metrics.ReservationMetrics.CreateStage;
+import acc.library.reservation.type.ReservationEventType;
+import acc.library.reservation.type.ReservationField;
 import acc.library.reservation.type.ReservationStatus;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the ReservationService interface responsible for handling
  * reservation-related business logic such as creating reservations, retrieving
- * reservations, and cancelling reservations. This class interacts with the BooksRepository
- * and ReservationsRepository for persistence operations and uses ReservationMapper
- * to map between entity and DTO representations.
+ * reservations, and cancelling reservations. This class interacts with the ReservationsRepository
+ * for persistence operations, delegates copy accounting to the InventoryService, reads book
+ * details through the cached BookCatalogService and uses ReservationMapper to map between
+ * entity and DTO representations. Every state change also writes an event to the outbox
+ * of the ReservationEventService, in the same transaction. Reads run in read-only
+ * transactions, which are served by a replica when replicas are configured, unless the
+ * user or reservation was written within the read-your-writes window.
  * This class is marked as a Spring component and is transactional for methods
  * that modify database state. Exceptions are thrown for various scenarios such
  * as missing resources, invalid operations, or exceeding constraints.
  */
 @Component
 public class ReservationServiceImpl implements ReservationService {
-    @Autowired
-    BooksRepository booksRepository;
-
     @Autowired
     ReservationsRepository reservationsRepository;
 
     @Autowired
     ReservationMapper reservationMapper;
 
+    @Autowired
+    InventoryService inventoryService;
+
+    @Autowired
+    BookCatalogService bookCatalogService;
+
+    @Autowired
+    ReservationMetrics reservationMetrics;
+
+    @Autowired
+    UserQuotaService userQuotaService;
+
+    @Autowired
+    WaitlistService waitlistService;
+
+    @Autowired
+    ReservationEventService reservationEventService;
+
+    @Autowired
+    ReadYourWrites readYourWrites;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
+    @Value("${reservation.batch.max-size:500}")
+    int maxBatchSize;
+
+    @Value("${reservation.history.recent-window:30d}")
+    Duration recentWindow;
+
+    /**
+     * Maximum number of reservations returned in one page of a user's reservations.
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String CURSOR_SEPARATOR = "_";
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    /**
+     * Writer of the export lines; flushing is left to the response buffer instead of every row,
+     * and closing the output stream to the caller.
+     */
+    private ObjectWriter exportWriter;
+
+    @PostConstruct
+    void initExportWriter() {
+        exportWriter = objectMapper.writerFor(ReservationInfoDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+    }
+
     /**
-     * Creates a new reservation for a book by a user. Ensures that the book exists,
-     * has available copies, and that the user does not exceed the reservation limit.
-     * If the operation is successful, the number of available book copies is decremented,
-     * and the reservation is saved.
+     * Creates a new reservation for a book by a user. Ensures that the book exists, that it has
+     * available copies and that the user does not exceed the reservation limit of their tier.
+     * The copy is taken from the {@link InventoryService} (a conditional decrement by default)
+     * and the limit is enforced with a conditional increment of the user's {@code user_quota}
+     * row, so concurrent requests can neither oversell a book nor exceed a limit. The copy is
+     * taken first, following the lock order of every path that changes copies and quotas
+     * ({@code books}, then {@code waitlist}, then {@code user_quota}), so a reservation never
+     * deadlocks with a cancellation or an expiry of the same user and book. A user that was
+     * waiting for the book leaves its waitlist, so a later copy is not handed to a user that
+     * already has one. If any check fails, the transaction is rolled back and the copy and the
+     * quota are returned.
      *
      * @param reservation the data transfer object containing the user ID and book ID
      *                    for the reservation request
@@ -54,27 +156,76 @@ public class ReservationServiceImpl implements ReservationService {
     @Override
     @Transactional
     public UUID create(ReservationDTO reservation) throws ResponseStatusException {
-        //find if book exists
-        if (booksRepository.findById(reservation.getBookId()).isEmpty()) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND, "Book Not Found");
-        }
+        long stageStart = System.nanoTime();
+
+        //take one copy, only if the book still has one left
+        int taken = inventoryService.reserve(reservation.getBookId(), 1);
+        stageStart = reservationMetrics.recordStage(CreateStage.COPY_DECREMENT, stageStart);
+
+        if (taken == 0) {
+            //only the failure path pays for telling a missing book apart from an exhausted one
+            boolean bookExists = bookCatalogService.findBookInfo(reservation.getBookId()).isPresent();
+            reservationMetrics.recordStage(CreateStage.BOOK_LOOKUP, stageStart);
+
+            if (!bookExists) {
+                reservationMetrics.recordOutcome(CreateOutcome.BOOK_NOT_FOUND);
+                throw new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Book Not Found");
+            }
 
-        //find if book has enough copies to be reserved
-        if (booksRepository.findById(reservation.getBookId()).get().getCopies() == 0) {
+            reservationMetrics.recordOutcome(CreateOutcome.NO_COPIES);
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, "No copies of the book left to be reserved.");
         }
-        //find if user can make more reservations
-        if (reservationsRepository.numberOfActiveReservations(reservation.getUserId()) >= 3) {
+
+        //the user no longer waits for the book, if they were in its waitlist
+        waitlistService.leave(reservation.getBookId(), reservation.getUserId());
+
+        //count the reservation, only if the user can make more reservations
+        boolean allowed = userQuotaService.tryAcquire(reservation.getUserId());
+        stageStart = reservationMetrics.recordStage(CreateStage.QUOTA_CHECK, stageStart);
+
+        if (!allowed) {
+            reservationMetrics.recordOutcome(CreateOutcome.QUOTA_EXCEEDED);
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, "User " + reservation.getUserId() + " is not allow to make more book reservations.");
         }
 
-        //Remove one unit
-        booksRepository.decrementBookCopies(reservation.getBookId());
+        Reservations entity = reservationsRepository.saveAndFlush(reservationMapper.mapReservationRequestDTOtoEntity(reservation));
+        reservationMetrics.recordStage(CreateStage.INSERT, stageStart);
 
-        return reservationsRepository.save(reservationMapper.mapReservationRequestDTOtoEntity(reservation)).getId();
+        reservationEventService.record(ReservationEventType.CREATED, entity);
+        readYourWrites.recordWrite(entity.getUserId());
+        readYourWrites.recordWrite(entity.getId());
+
+        reservationMetrics.recordOutcome(CreateOutcome.CREATED);
+        return entity.getId();
+    }
+
+    /**
+     * Creates a new reservation at most once per idempotency key of a user. The key is claimed in
+     * the same transaction as the reservation, so retries of a request that succeeded return its
+     * reservation, even when they reach another node or arrive while the first attempt is still
+     * running, and retries of a request that failed try again.
+     *
+     * @param reservation    the data transfer object containing the user ID and book ID
+     *                       for the reservation request
+     * @param idempotencyKey the key the client sent with the request
+     * @return the UUID of the reservation created for this key
+     * @throws ResponseStatusException if the reservation cannot be created, see {@link #create(ReservationDTO)},
+     *                                 or the key was used for another book
+     */
+    @Override
+    @Transactional
+    public UUID create(ReservationDTO reservation, String idempotencyKey) throws ResponseStatusException {
+        Optional<UUID> existing = idempotencyService.claim(reservation.getUserId(), idempotencyKey, reservation.getBookId());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        UUID reservationId = create(reservation);
+        idempotencyService.complete(reservation.getUserId(), idempotencyKey, reservation.getBookId(), reservationId);
+        return reservationId;
     }
 
     /**
@@ -87,77 +238,411 @@ public class ReservationServiceImpl implements ReservationService {
      * @throws ResponseStatusException if the reservation is not found in the repository
      */
     @Override
+    @Transactional(readOnly = true)
     public ReservationInfoDTO getReservationById(UUID reservationId) throws ResponseStatusException {
-        if (reservationsRepository.findById(reservationId).isEmpty()) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND, "Reservation Not Found");
-        }
+        Reservations reservation = readYourWrites.read(reservationId, () -> reservationsRepository.findById(reservationId))
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Reservation Not Found"));
 
-        return getReservationInfoDTO(reservationId);
+        return getReservationInfoDTO(reservation);
     }
 
 
     /**
-     * Retrieves all reservations associated with a specific user.
+     * Retrieves one page of the reservations associated with a specific user, newest first.
+     * Each page is loaded with a single query that joins the reservations with their books,
+     * and pages are chained with a keyset cursor on {@code (created, id)}, so the cost of a
+     * page does not depend on how much history the user has. The first page is read from the
+     * reservations created within {@code reservation.history.recent-window} first, so it only
+     * touches the recent partitions, and from the older ones only when the window does not fill
+     * it. Only the selected fields are returned, and the books are not joined at all when the
+     * book is not selected. Reservations moved to the archive are not returned.
      * If no reservations are found for the given user ID, a {@link ResponseStatusException}
      * with {@code HttpStatus.NOT_FOUND} is thrown.
      *
      * @param userId the unique identifier of the user whose reservations are to be retrieved
-     * @return a list of {@link ReservationInfoDTO} objects containing details of each reservation
-     * @throws ResponseStatusException if no reservations are found for the provided userId
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit  the maximum number of reservations to return, capped at {@value #MAX_PAGE_SIZE}
+     * @param fields the fields of each reservation to return
+     * @return a {@link ReservationPageDTO} with the reservations and the cursor of the next page,
+     * which is {@code null} when there are no more pages
+     * @throws ResponseStatusException if no reservations are found for the provided userId,
+     *                                 or the cursor is malformed
      */
     @Override
-    public List<ReservationInfoDTO> getAllReservationsByUser(UUID userId) {
-        if (reservationsRepository.findByUserId(userId).isEmpty()) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND, "Reservations Not Found");
+    @Transactional(readOnly = true)
+    public ReservationPageDTO getAllReservationsByUser(UUID userId, String cursor, int limit, Set<ReservationField> fields) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        boolean withBook = fields.contains(ReservationField.BOOK);
+
+        List<? extends ReservationView> page;
+        if (cursor == null) {
+            Date since = new Date(System.currentTimeMillis() - recentWindow.toMillis());
+            page = readYourWrites.read(userId, () -> findFirstPage(userId, since, pageSize, withBook));
+
+            if (page.isEmpty()) {
+                throw new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Reservations Not Found");
+            }
+        } else {
+            String[] position = decodeCursor(cursor);
+            Date created = Timestamp.from(Instant.parse(position[0]));
+            UUID id = UUID.fromString(position[1]);
+            page = readYourWrites.read(userId, () -> withBook
+                    ? reservationsRepository.findPageByUserIdAfter(userId, created, id, pageSize)
+                    : reservationsRepository.findReservationPageByUserIdAfter(userId, created, id, pageSize));
         }
 
-        List<Reservations> allReservations = reservationsRepository.findByUserId(userId);
+        List<ReservationInfoDTO> clientReservations = new ArrayList<>(page.size());
 
-        List<ReservationInfoDTO> clientReservations = new ArrayList<>();
+        page.forEach(view -> clientReservations.add(reservationMapper.mapReservationViewToDTO(view, fields)));
 
-        allReservations.forEach(reservations -> {
-            clientReservations.add(getReservationInfoDTO(reservations.getId()));
-        });
+        String nextCursor = page.size() == pageSize ? encodeCursor(page.get(page.size() - 1)) : null;
 
-        return clientReservations;
+        return new ReservationPageDTO(clientReservations, nextCursor);
     }
 
     /**
      * Cancels the status of a reservation by updating it to CANCELED.
+     * The reservation is only canceled if it is still ACTIVE, with a single conditional UPDATE,
+     * so concurrent cancellations and the expiry job release its copy and quota exactly once.
      * If the reservation ID does not exist, a {@link ResponseStatusException} with
-     * {@code HttpStatus.NOT_FOUND} is thrown. If the provided status is not
+     * {@code HttpStatus.NOT_FOUND} is thrown, and if it is no longer ACTIVE one with
+     * {@code HttpStatus.CONFLICT}. If the provided status is not
      * {@code ReservationStatus.CANCELED}, a {@link ResponseStatusException} with
-     * {@code HttpStatus.BAD_REQUEST} is thrown. This method will also
-     * increment the book copies associated with the canceled reservation.
+     * {@code HttpStatus.BAD_REQUEST} is thrown. This method will also hand the
+     * freed copy to the head of the book's waitlist, or give it back to the inventory.
      *
      * @param reservationId the unique identifier of the reservation to cancel
      * @param status        the status to update the reservation to, expected to be {@code ReservationStatus.CANCELED}
-     * @throws ResponseStatusException if the reservation ID does not exist or the status is invalid
+     * @throws ResponseStatusException if the reservation ID does not exist, is not ACTIVE or the status is invalid
      */
     @Override
     @Transactional
     public void cancelReservationStatus(UUID reservationId, ReservationStatus status) {
-        if (reservationsRepository.findById(reservationId).isEmpty()) {
+        if (status != ReservationStatus.CANCELED) {
             throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND, "Reservation Not Found");
+                    HttpStatus.BAD_REQUEST, "Invalid Status Change, only CANCELED is allowed.");
         }
 
-        if (status != ReservationStatus.CANCELED) {
+        Optional<ReservationTransition> canceled = reservationsRepository.cancelActiveReservation(reservationId);
+        if (canceled.isEmpty()) {
+            if (!reservationsRepository.existsById(reservationId)) {
+                throw new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Reservation Not Found");
+            }
             throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST, "Invalid Status Change, only CANCELED is allowed.");
+                    HttpStatus.CONFLICT, "Only ACTIVE reservations can be canceled.");
+        }
+
+        ReservationTransitionView reservation = canceled.get();
+        reservationEventService.record(ReservationEventType.CANCELED, reservation);
+        readYourWrites.recordWrite(reservation.getUserId());
+        readYourWrites.recordWrite(reservationId);
+        releaseReservations(List.of(reservation));
+
+        reservationMetrics.recordCanceled(1);
+    }
+
+    /**
+     * Expires one bounded batch of active reservations created before the given cutoff and
+     * gives their copies and user quota back in the same transaction, with a single release
+     * per book and per user.
+     *
+     * @param cutoff     reservations created before this instant are expired
+     * @param limit      the maximum number of reservations to expire in this batch
+     * @param shardCount the number of book id shards the backlog is split into, {@code 1} for all books
+     * @param shard      the shard of book ids to expire
+     * @return the number of reservations expired; less than {@code limit} once the backlog is drained
+     */
+    @Override
+    @Transactional
+    public int expireReservations(Date cutoff, int limit, int shardCount, int shard) {
+        List<ReservationTransition> expired = reservationsRepository.expireActiveReservations(cutoff, limit, shardCount, shard);
+
+        reservationEventService.recordAll(ReservationEventType.EXPIRED, expired);
+        releaseReservations(expired);
+
+        return expired.size();
+    }
+
+    /**
+     * Counts the reservations waiting to be expired, up to {@code limit}, so the expiry job can
+     * tell a small backlog from one worth splitting across nodes.
+     *
+     * @param cutoff reservations created before this instant are counted
+     * @param limit  the count at which to stop
+     * @return the number of expirable reservations, at most {@code limit}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long countExpirable(Date cutoff, int limit) {
+        return reservationsRepository.countExpirable(cutoff, limit);
+    }
+
+    /**
+     * Writes the reservations created in {@code [from, to)}, joined with their book, to the given
+     * stream as NDJSON (one JSON object per line), oldest first. Rows come from a forward-only
+     * database cursor and are mapped and written one at a time, so memory stays constant no matter
+     * how many reservations are exported. The read-only transaction is served by a replica when
+     * replicas are configured.
+     *
+     * @param from   the inclusive lower bound of the creation time
+     * @param to     the exclusive upper bound of the creation time
+     * @param status the status to export, or {@code null} for all statuses
+     * @param output the stream to write to; it is flushed but not closed
+     * @return the number of reservations written
+     * @throws IOException if writing to the stream fails
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportReservations(Date from, Date to, ReservationStatus status, OutputStream output) throws IOException {
+        long count = 0;
+        try (Stream<ReservationBookView> rows = reservationsRepository.streamByCreatedBetween(from, to, status == null ? null : status.name());
+             SequenceWriter lines = exportWriter.writeValues(output)) {
+            for (ReservationBookView row : (Iterable<ReservationBookView>) rows::iterator) {
+                lines.write(reservationMapper.mapReservationBookViewToDTO(row));
+                count++;
+            }
+            lines.flush();
+            if (count > 0) {
+                output.write(NEWLINE);
+            }
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Creates a batch of reservations in a single transaction and reports the outcome of each
+     * request, in request order. Requests that are invalid, find no copies left or exceed the
+     * user's limit are rejected individually without affecting the others. The copies of each book
+     * are taken with one inventory call and the reservations are inserted with JDBC batching.
+     * Rows are locked in the same order as every single reservation and release: the books first,
+     * in book id order, then the waitlist entries of the users that got a copy, then the user
+     * quotas, in user id order, so concurrent batches, reservations and cancellations cannot
+     * deadlock each other.
+     *
+     * @param reservations the reservation requests
+     * @return one result per request: 201 with the reservation id, or 400/404 with the reason
+     * @throws ResponseStatusException if the batch is empty or larger than {@code reservation.batch.max-size}
+     */
+    @Override
+    @Transactional
+    public List<BatchResultDTO> createAll(List<ReservationDTO> reservations) {
+        checkBatchSize(reservations);
+
+        BatchResultDTO[] results = new BatchResultDTO[reservations.size()];
+
+        //group the valid requests by book in book id order, keeping the request order of each book
+        SortedMap<UUID, List<Integer>> requestsByBook = new TreeMap<>();
+        for (int i = 0; i < reservations.size(); i++) {
+            ReservationDTO reservation = reservations.get(i);
+            if (reservation == null || reservation.getUserId() == null || reservation.getBookId() == null) {
+                results[i] = rejected(reservation, HttpStatus.BAD_REQUEST, "User Id and Book Id are required");
+                continue;
+            }
+
+            requestsByBook.computeIfAbsent(reservation.getBookId(), bookId -> new ArrayList<>()).add(i);
+        }
+
+        //take the copies of each book at once, first come first served
+        List<Integer> requestsWithCopy = new ArrayList<>();
+        requestsByBook.forEach((bookId, requests) -> {
+            int granted = inventoryService.reserve(bookId, requests.size());
+            boolean bookExists = granted > 0 || bookCatalogService.findBookInfo(bookId).isPresent();
+
+            for (int k = 0; k < requests.size(); k++) {
+                int request = requests.get(k);
+                if (k < granted) {
+                    requestsWithCopy.add(request);
+                } else if (!bookExists) {
+                    results[request] = rejected(reservations.get(request), HttpStatus.NOT_FOUND, "Book Not Found");
+                } else {
+                    results[request] = rejected(reservations.get(request), HttpStatus.BAD_REQUEST, "No copies of the book left to be reserved.");
+                }
+            }
+        });
+
+        //the users that got a copy no longer wait for the book; a user over the limit would lose the place anyway
+        requestsWithCopy.forEach(request ->
+                waitlistService.leave(reservations.get(request).getBookId(), reservations.get(request).getUserId()));
+
+        //then count the reservations of each user, users in user id order
+        requestsWithCopy.sort(Comparator.comparing((Integer request) -> reservations.get(request).getUserId())
+                .thenComparing(Comparator.naturalOrder()));
+        List<Integer> grantedRequests = new ArrayList<>();
+        SortedMap<UUID, Integer> unusedCopies = new TreeMap<>();
+        requestsWithCopy.forEach(request -> {
+            ReservationDTO reservation = reservations.get(request);
+            if (userQuotaService.tryAcquire(reservation.getUserId())) {
+                grantedRequests.add(request);
+                return;
+            }
+
+            unusedCopies.merge(reservation.getBookId(), 1, Integer::sum);
+            results[request] = rejected(reservation, HttpStatus.BAD_REQUEST,
+                    "User " + reservation.getUserId() + " is not allow to make more book reservations.");
+        });
+
+        //give back the copies of the requests over the limit; their book rows are already locked by this transaction
+        unusedCopies.forEach(inventoryService::release);
+
+        grantedRequests.sort(Comparator.naturalOrder());
+        List<Reservations> entities = new ArrayList<>(grantedRequests.size());
+        grantedRequests.forEach(request -> entities.add(reservationMapper.mapReservationRequestDTOtoEntity(reservations.get(request))));
+
+        //ids are generated in memory, so hibernate can send the inserts in JDBC batches
+        reservationsRepository.saveAll(entities);
+        reservationEventService.recordAll(ReservationEventType.CREATED, entities);
+        entities.forEach(entity -> {
+            readYourWrites.recordWrite(entity.getUserId());
+            readYourWrites.recordWrite(entity.getId());
+        });
+
+        for (int k = 0; k < entities.size(); k++) {
+            Reservations entity = entities.get(k);
+            results[grantedRequests.get(k)] = new BatchResultDTO(entity.getId(), entity.getUserId(), entity.getBookId(),
+                    HttpStatus.CREATED.value(), null);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Cancels a batch of reservations in a single transaction and reports the outcome of each
+     * id, in request order. All ACTIVE reservations are canceled with one conditional UPDATE and
+     * their copies are given back with one inventory call per book. Ids that were not canceled
+     * are reported as 404 if the reservation does not exist or 409 if it is no longer ACTIVE.
+     *
+     * @param reservationIds the unique identifiers of the reservations to cancel
+     * @return one result per id: 200, or 400/404/409 with the reason
+     * @throws ResponseStatusException if the batch is empty or larger than {@code reservation.batch.max-size}
+     */
+    @Override
+    @Transactional
+    public List<BatchResultDTO> cancelAll(List<UUID> reservationIds) {
+        checkBatchSize(reservationIds);
+
+        Set<UUID> distinctIds = new HashSet<>(reservationIds);
+        distinctIds.remove(null);
+
+        Map<UUID, ReservationTransitionView> canceled = new HashMap<>();
+        if (!distinctIds.isEmpty()) {
+            reservationsRepository.cancelActiveReservations(distinctIds)
+                    .forEach(reservation -> canceled.put(reservation.getId(), reservation));
         }
 
-        reservationsRepository.updateReservationStatus(status, reservationId);
+        reservationEventService.recordAll(ReservationEventType.CANCELED, canceled.values());
+        canceled.values().forEach(reservation -> {
+            readYourWrites.recordWrite(reservation.getUserId());
+            readYourWrites.recordWrite(reservation.getId());
+        });
+        releaseReservations(canceled.values());
+        reservationMetrics.recordCanceled(canceled.size());
 
-        booksRepository.incrementBookCopies(reservationsRepository.findById(reservationId).get().getBookId());
+        //only the ids that were not canceled need a second look, to tell missing ones from closed ones
+        Set<UUID> existing = new HashSet<>();
+        distinctIds.removeAll(canceled.keySet());
+        if (!distinctIds.isEmpty()) {
+            reservationsRepository.findAllById(distinctIds).forEach(reservation -> existing.add(reservation.getId()));
+        }
+
+        List<BatchResultDTO> results = new ArrayList<>(reservationIds.size());
+        Set<UUID> reported = new HashSet<>();
+        reservationIds.forEach(reservationId -> {
+            ReservationTransitionView reservation = canceled.get(reservationId);
+            if (reservationId == null) {
+                results.add(new BatchResultDTO(null, null, null, HttpStatus.BAD_REQUEST.value(), "Reservation Id is required"));
+            } else if (reservation != null && reported.add(reservationId)) {
+                results.add(new BatchResultDTO(reservationId, reservation.getUserId(), reservation.getBookId(), HttpStatus.OK.value(), null));
+            } else if (reservation != null || existing.contains(reservationId)) {
+                results.add(new BatchResultDTO(reservationId, null, null, HttpStatus.CONFLICT.value(), "Only ACTIVE reservations can be canceled."));
+            } else {
+                results.add(new BatchResultDTO(reservationId, null, null, HttpStatus.NOT_FOUND.value(), "Reservation Not Found"));
+            }
+        });
+
+        return results;
     }
 
-    private ReservationInfoDTO getReservationInfoDTO(UUID reservationId) {
-        Reservations reservation = reservationsRepository.findById(reservationId).get();
+    /**
+     * Gives back the copies and the user quota of reservations that were just closed, with one
+     * release per book and one per user. Copies go to the book's waitlist first. The rows are
+     * locked in the global order, each kind in id order: the books first, then the waitlists
+     * and the quotas of the waiters and of the users, so concurrent releases, batches and new
+     * reservations cannot deadlock each other.
+     */
+    private void releaseReservations(Collection<? extends ReservationTransitionView> closed) {
+        SortedMap<UUID, Integer> releasedCopies = new TreeMap<>();
+        SortedMap<UUID, Integer> releasedQuota = new TreeMap<>();
+        closed.forEach(reservation -> {
+            releasedCopies.merge(reservation.getBookId(), 1, Integer::sum);
+            releasedQuota.merge(reservation.getUserId(), 1, Integer::sum);
+        });
+        if (releasedCopies.isEmpty()) {
+            return;
+        }
+
+        releasedCopies.keySet().forEach(inventoryService::lockAvailable);
+        Map<UUID, Integer> allocated = waitlistService.allocate(releasedCopies, releasedQuota);
+        releasedCopies.forEach((bookId, copies) -> inventoryService.release(bookId, copies - allocated.getOrDefault(bookId, 0)));
+    }
+
+    /**
+     * Loads the first page of a user's reservations from the recent window, and completes it
+     * from the older reservations when the window holds less than a page.
+     */
+    private List<? extends ReservationView> findFirstPage(UUID userId, Date since, int pageSize, boolean withBook) {
+        List<? extends ReservationView> recent = withBook
+                ? reservationsRepository.findRecentPageByUserId(userId, since, pageSize)
+                : reservationsRepository.findRecentReservationPageByUserId(userId, since, pageSize);
+        if (recent.size() == pageSize) {
+            return recent;
+        }
+
+        List<ReservationView> page = new ArrayList<>(recent);
+        page.addAll(withBook
+                ? reservationsRepository.findPageByUserIdBefore(userId, since, pageSize - recent.size())
+                : reservationsRepository.findReservationPageByUserIdBefore(userId, since, pageSize - recent.size()));
+        return page;
+    }
+
+    private void checkBatchSize(List<?> batch) {
+        if (batch == null || batch.isEmpty() || batch.size() > maxBatchSize) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "A batch must contain between 1 and " + maxBatchSize + " items.");
+        }
+    }
+
+    private static BatchResultDTO rejected(ReservationDTO reservation, HttpStatus status, String message) {
+        return reservation == null
+                ? new BatchResultDTO(null, null, null, status.value(), message)
+                : new BatchResultDTO(null, reservation.getUserId(), reservation.getBookId(), status.value(), message);
+    }
+
+    private static String encodeCursor(ReservationView last) {
+        //Timestamp.toInstant keeps the sub-millisecond part the database stored
+        Instant created = last.getCreated() instanceof Timestamp timestamp ? timestamp.toInstant() : last.getCreated().toInstant();
+        String position = created + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR);
+            //validate both parts before they reach the query
+            Instant.parse(position[0]);
+            UUID.fromString(position[1]);
+            return position;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+    }
 
-        Books book = booksRepository.findById(reservation.getBookId()).get();
+    private ReservationInfoDTO getReservationInfoDTO(Reservations reservation) {
+        BookInfoDTO book = bookCatalogService.findBookInfo(reservation.getBookId()).get();
 
         return reservationMapper.mapReservationInfoEntityToDTO(reservation, book);
     }
@@ -0,0 +1,23 @@
+package acc.library.reservation.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+@Service
+public interface SchedulerLeaseService {
+    void renew();
+
+    void release();
+
+    boolean isLeader();
+
+    String nodeId();
+
+    List<String> liveNodes();
+
+    void publishFlag(String name, boolean raised, Duration ttl);
+
+    boolean isFlagRaised(String name);
+}
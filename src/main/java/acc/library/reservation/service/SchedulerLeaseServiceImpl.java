@@ -0,0 +1,142 @@
+package acc.library.reservation.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import acc.library.reservation.entity.SchedulerLeasesRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Coordinates the scheduled jobs of several nodes sharing one database through leases in the
+ * {@code scheduler_leases} table.
+ * <p>
+ * Every {@code reservation.scheduler.lease-renew-interval} each node renews its own liveness
+ * lease and tries to take or extend the {@value #LEADER_LEASE} lease. The leader runs the
+ * maintenance jobs; the liveness leases tell every node how many nodes share a large expiry
+ * backlog and which shard is its own. A node only trusts a lease until
+ * {@code reservation.scheduler.lease-ttl} minus one renew interval after it asked for it, so it
+ * stops acting before the lease can expire in the database and be taken by another node. If the
+ * leader dies, another node takes over within one TTL plus one renew interval; if it shuts down
+ * cleanly, its leases are released and the takeover happens on the next renewal. The leader also
+ * publishes flags, leases of their own name, for decisions the other nodes must not take alone.
+ */
+@Component
+public class SchedulerLeaseServiceImpl implements SchedulerLeaseService {
+    static final String LEADER_LEASE = "maintenance-leader";
+
+    static final String NODE_LEASE_PREFIX = "node:";
+
+    @Autowired
+    SchedulerLeasesRepository schedulerLeasesRepository;
+
+    private final String nodeId;
+
+    private final Duration ttl;
+
+    private final long trustedNanos;
+
+    private volatile long leaderUntilNanos;
+
+    private volatile long nodeUntilNanos;
+
+    private volatile List<String> liveNodes = List.of();
+
+    public SchedulerLeaseServiceImpl(@Value("${reservation.scheduler.node-id:}") String nodeId,
+                                     @Value("${reservation.scheduler.lease-ttl:10s}") Duration ttl,
+                                     @Value("${reservation.scheduler.lease-renew-interval:2s}") Duration renewInterval) {
+        if (renewInterval.compareTo(ttl) >= 0) {
+            throw new IllegalArgumentException("reservation.scheduler.lease-renew-interval must be shorter than reservation.scheduler.lease-ttl");
+        }
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.ttl = ttl;
+        this.trustedNanos = ttl.minus(renewInterval).toNanos();
+        long now = System.nanoTime();
+        this.leaderUntilNanos = now;
+        this.nodeUntilNanos = now;
+    }
+
+    /**
+     * Renews the liveness lease of this node, takes or extends the leader lease, and refreshes
+     * the list of live nodes. The leader also deletes the liveness leases of nodes that are gone.
+     */
+    @Override
+    @Transactional
+    public void renew() {
+        long requested = System.nanoTime();
+
+        schedulerLeasesRepository.acquire(NODE_LEASE_PREFIX + nodeId, nodeId, ttl.toMillis());
+        nodeUntilNanos = requested + trustedNanos;
+
+        boolean leader = schedulerLeasesRepository.acquire(LEADER_LEASE, nodeId, ttl.toMillis()) == 1;
+        leaderUntilNanos = leader ? requested + trustedNanos : requested;
+        if (leader) {
+            schedulerLeasesRepository.deleteExpired(NODE_LEASE_PREFIX);
+        }
+
+        liveNodes = schedulerLeasesRepository.findLiveOwners(NODE_LEASE_PREFIX);
+    }
+
+    /**
+     * Gives up the leases of this node, so the other nodes take over its work at their next
+     * renewal instead of waiting for the leases to expire.
+     */
+    @Override
+    @Transactional
+    public void release() {
+        leaderUntilNanos = nodeUntilNanos = System.nanoTime();
+        schedulerLeasesRepository.release(LEADER_LEASE, nodeId);
+        schedulerLeasesRepository.release(NODE_LEASE_PREFIX + nodeId, nodeId);
+    }
+
+    /**
+     * @return {@code true} while this node holds the leader lease
+     */
+    @Override
+    public boolean isLeader() {
+        return System.nanoTime() - leaderUntilNanos < 0;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return the ids of the live nodes in a stable order, as of the last renewal; empty while
+     * the liveness lease of this node is not held
+     */
+    @Override
+    public List<String> liveNodes() {
+        return System.nanoTime() - nodeUntilNanos < 0 ? liveNodes : List.of();
+    }
+
+    /**
+     * Publishes a decision of the leader to the other nodes as a lease named {@code name}: raised,
+     * it lasts {@code ttl} unless published again, so a leader that dies stops vouching for it.
+     * Does nothing on other nodes.
+     */
+    @Override
+    @Transactional
+    public void publishFlag(String name, boolean raised, Duration ttl) {
+        if (!isLeader()) {
+            return;
+        }
+        if (raised) {
+            schedulerLeasesRepository.put(name, nodeId, ttl.toMillis());
+        } else {
+            schedulerLeasesRepository.remove(name);
+        }
+    }
+
+    /**
+     * @return {@code true} if the leader raised the flag {@code name} and it has not expired
+     */
+    @Override
+    public boolean isFlagRaised(String name) {
+        return schedulerLeasesRepository.isLive(name);
+    }
+}
@@ -0,0 +1,20 @@
+package acc.library.reservation.service;
+
+import org.springframework.stereotype.Service;
+import acc.library.reservation.type.QuotaTier;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public interface UserQuotaService {
+    boolean tryAcquire(UUID userId);
+
+    void release(UUID userId, int count);
+
+    int reconcile(List<UUID> userIds);
+
+    int insertMissingQuotas();
+
+    void setTier(UUID userId, QuotaTier tier);
+}
@@ -0,0 +1,95 @@
+package acc.library.reservation.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import acc.library.reservation.entity.UserQuotasRepository;
+import acc.library.reservation.type.QuotaTier;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Enforces the maximum number of active reservations per user with the denormalized counters
+ * of the {@code user_quota} table. The limit of each tier is configured with
+ * {@code reservation.quota.limit.<tier>}. Acquiring and releasing run inside the caller's
+ * transaction, so a rolled back reservation also rolls back its quota.
+ */
+@Component
+public class UserQuotaServiceImpl implements UserQuotaService {
+    @Autowired
+    UserQuotasRepository userQuotasRepository;
+
+    @Value("${reservation.quota.limit.standard:3}")
+    long standardLimit;
+
+    @Value("${reservation.quota.limit.premium:5}")
+    long premiumLimit;
+
+    @Value("${reservation.quota.limit.staff:10}")
+    long staffLimit;
+
+    /**
+     * Counts one more active reservation for a user, if the user's tier allows it.
+     *
+     * @param userId the unique identifier of the user
+     * @return {@code true} if the reservation was counted, {@code false} if the user reached the limit
+     */
+    @Override
+    public boolean tryAcquire(UUID userId) {
+        return userQuotasRepository.incrementActiveReservations(userId, standardLimit, premiumLimit, staffLimit) > 0;
+    }
+
+    /**
+     * Counts {@code count} fewer active reservations for a user.
+     *
+     * @param userId the unique identifier of the user
+     * @param count  the number of reservations that were canceled or expired
+     */
+    @Override
+    public void release(UUID userId, int count) {
+        if (count > 0) {
+            userQuotasRepository.decrementActiveReservations(userId, count);
+        }
+    }
+
+    /**
+     * Recomputes the counters of a batch of users in its own transaction. The quota rows are
+     * locked before the reservations are counted, in a separate statement, so a reservation
+     * created or closed while the reconciliation waited for a row is counted instead of being
+     * overwritten by a stale count.
+     *
+     * @param userIds the unique identifiers of the users to reconcile
+     * @return the number of counters that had drifted and were corrected
+     */
+    @Override
+    @Transactional
+    public int reconcile(List<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        List<UUID> locked = userQuotasRepository.lockQuotas(userIds);
+        return locked.isEmpty() ? 0 : userQuotasRepository.reconcileActiveReservations(locked);
+    }
+
+    @Override
+    @Transactional
+    public int insertMissingQuotas() {
+        return userQuotasRepository.insertMissingQuotas();
+    }
+
+    /**
+     * Sets the tier of a user, creating the user's quota row with no active reservations if it
+     * does not exist yet. Reservations held above a lowered limit are kept; the user cannot
+     * reserve again until back below it.
+     *
+     * @param userId the unique identifier of the user
+     * @param tier   the new tier of the user
+     */
+    @Override
+    @Transactional
+    public void setTier(UUID userId, QuotaTier tier) {
+        userQuotasRepository.upsertTier(userId, tier.name());
+    }
+}
@@ -0,0 +1,20 @@
+package acc.library.reservation.service;
+
+import jakarta.validation.Valid;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.dto.ReservationDTO;
+import acc.library.reservation.dto.WaitlistDTO;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+
+@Service
+public interface WaitlistService {
+    WaitlistDTO join(@Valid ReservationDTO reservation) throws ResponseStatusException;
+
+    void leave(UUID bookId, UUID userId);
+
+    Map<UUID, Integer> allocate(SortedMap<UUID, Integer> freedCopies, SortedMap<UUID, Integer> releasedQuota);
+}
@@ -0,0 +1,171 @@
+package acc.library.reservation.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.dto.ReservationDTO;
+import acc.library.reservation.dto.WaitlistDTO;
+import acc.library.reservation.entity.Reservations;
+import acc.library.reservation.entity.ReservationsRepository;
+import acc.library.reservation.entity.WaitlistQueueRepository;
+import acc.library.reservation.entity.WaitlistRepository;
+import acc.library.reservation.inventory.InventoryService;
+import acc.library.reservation.mapper.ReservationMapper;
+import acc.library.reservation.type.ReservationEventType;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Per-book FIFO waitlists. Users join the waitlist of a book that has no copies left instead
+ * of retrying their reservation, and copies given back by cancellations and expiry are handed
+ * to the head of the queue as ACTIVE reservations, in the same transaction as the release.
+ */
+@Component
+public class WaitlistServiceImpl implements WaitlistService {
+    @Autowired
+    WaitlistRepository waitlistRepository;
+
+    @Autowired
+    WaitlistQueueRepository waitlistQueueRepository;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    @Autowired
+    ReservationsRepository reservationsRepository;
+
+    @Autowired
+    UserQuotaService userQuotaService;
+
+    @Autowired
+    ReservationMapper reservationMapper;
+
+    @Autowired
+    ReservationEventService reservationEventService;
+
+    /**
+     * Adds a user to the end of the waitlist of a book. The book row is locked while the copies
+     * are checked, so a copy given back concurrently is either seen here or handed to this user
+     * by the release, never missed by both. The place of the user is the length of the queue
+     * after joining, read from the book's {@code waitlist_queue} row, so joining a long queue
+     * costs the same as joining an empty one.
+     *
+     * @param reservation the data transfer object containing the user ID and book ID
+     * @return the place of the user in the book's waitlist, starting at {@code 1}
+     * @throws ResponseStatusException if the book does not exist, still has copies available,
+     *                                 or the user is already waiting for it
+     */
+    @Override
+    @Transactional
+    public WaitlistDTO join(ReservationDTO reservation) throws ResponseStatusException {
+        long available = inventoryService.lockAvailable(reservation.getBookId())
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Book Not Found"));
+
+        if (available > 0) {
+            throw new ResponseStatusException(
+                    HttpStatus.CONFLICT, "Copies of the book are available, reserve it instead.");
+        }
+
+        waitlistRepository.enqueue(reservation.getBookId(), reservation.getUserId(), new Date())
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.CONFLICT, "User " + reservation.getUserId() + " is already waiting for this book."));
+
+        long position = waitlistQueueRepository.append(reservation.getBookId());
+        return new WaitlistDTO(position, reservation.getUserId(), reservation.getBookId());
+    }
+
+    /**
+     * Removes a user from the waitlist of a book once the user reserved a copy of it directly.
+     * Must run in the transaction that took the copy, after it locked the {@code books} row.
+     *
+     * @param bookId the unique identifier of the book
+     * @param userId the unique identifier of the user
+     */
+    @Override
+    public void leave(UUID bookId, UUID userId) {
+        if (waitlistRepository.remove(bookId, userId) > 0) {
+            waitlistQueueRepository.shorten(bookId, 1);
+        }
+    }
+
+    /**
+     * Hands the freed copies of several books to the users at the head of their waitlists,
+     * creating an ACTIVE reservation for each of them, and gives back the quota of the users
+     * whose reservations freed the copies. Must run in the transaction that freed the copies,
+     * after it locked the {@code books} rows.
+     * <p>
+     * Waiters are dequeued book by book, and then the quota rows of the waiters and of the
+     * releasing users are updated together in user id order, following the global lock order.
+     * Waiters that reached their reservation limit in the meantime lose their place, and their
+     * copies go to the next waiters in another round.
+     *
+     * @param freedCopies   the copies freed per book
+     * @param releasedQuota the reservations closed per user
+     * @return the copies handed to waiters per book; the caller gives the rest back to the inventory
+     */
+    @Override
+    public Map<UUID, Integer> allocate(SortedMap<UUID, Integer> freedCopies, SortedMap<UUID, Integer> releasedQuota) {
+        Map<UUID, Integer> allocatedCopies = new TreeMap<>();
+        SortedMap<UUID, Integer> remaining = new TreeMap<>(freedCopies);
+        SortedMap<UUID, Integer> quotaToRelease = new TreeMap<>(releasedQuota);
+        List<Reservations> allocated = new ArrayList<>();
+
+        boolean rejected;
+        do {
+            SortedMap<UUID, List<UUID>> waitersByUser = new TreeMap<>();
+            remaining.forEach((bookId, copies) -> {
+                int dequeued = 0;
+                for (; dequeued < copies; dequeued++) {
+                    Optional<UUID> waiter = waitlistRepository.dequeue(bookId);
+                    if (waiter.isEmpty()) {
+                        break;
+                    }
+                    waitersByUser.computeIfAbsent(waiter.get(), userId -> new ArrayList<>()).add(bookId);
+                }
+                if (dequeued > 0) {
+                    waitlistQueueRepository.shorten(bookId, dequeued);
+                }
+            });
+
+            SortedSet<UUID> users = new TreeSet<>(waitersByUser.keySet());
+            users.addAll(quotaToRelease.keySet());
+            rejected = false;
+            for (UUID userId : users) {
+                Integer released = quotaToRelease.remove(userId);
+                if (released != null) {
+                    userQuotaService.release(userId, released);
+                }
+
+                for (UUID bookId : waitersByUser.getOrDefault(userId, List.of())) {
+                    if (!userQuotaService.tryAcquire(userId)) {
+                        rejected = true;
+                        continue;
+                    }
+                    ReservationDTO reservation = new ReservationDTO();
+                    reservation.setUserId(userId);
+                    reservation.setBookId(bookId);
+                    allocated.add(reservationMapper.mapReservationRequestDTOtoEntity(reservation));
+                    remaining.merge(bookId, -1, Integer::sum);
+                    allocatedCopies.merge(bookId, 1, Integer::sum);
+                }
+            }
+            remaining.values().removeIf(copies -> copies == 0);
+        } while (rejected && !remaining.isEmpty());
+
+        reservationsRepository.saveAll(allocated);
+        reservationEventService.recordAll(ReservationEventType.CREATED, allocated);
+        return allocatedCopies;
+    }
+}
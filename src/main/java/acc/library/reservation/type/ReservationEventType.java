@@ -0,0 +1,7 @@
+package acc.library.reservation.type;
+
+public enum ReservationEventType {
+    CREATED,
+    CANCELED,
+    EXPIRED
+}
@@ -0,0 +1,21 @@
+package acc.library.reservation.type;
+
+/**
+ * Fields of a reservation that a client can select with the {@code fields} parameter.
+ */
+public enum ReservationField {
+    USER_ID("userId"),
+    BOOK("book"),
+    CREATED("created"),
+    STATUS("status");
+
+    private final String fieldName;
+
+    ReservationField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+}
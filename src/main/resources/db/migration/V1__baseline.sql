@@ -0,0 +1,120 @@
+-- Baseline schema for the prod profile, where Flyway manages the schema instead of Hibernate.
+-- Mirrors the entities and db/partitioning.sql; later changes go in new V<n>__*.sql files.
+
+CREATE TABLE books (
+    id     uuid NOT NULL PRIMARY KEY,
+    title  varchar(255),
+    author varchar(255),
+    isbn   varchar(255),
+    copies bigint,
+    CONSTRAINT uk_books_isbn UNIQUE (isbn),
+    CONSTRAINT books_copies_check CHECK (copies >= 0)
+);
+
+-- partitioned by month of creation; monthly partitions are created by the application
+CREATE TABLE reservations (
+    id      uuid         NOT NULL,
+    user_id uuid,
+    book_id uuid,
+    created timestamp(6) NOT NULL,
+    status  varchar(255) CHECK (status IN ('ACTIVE', 'CANCELED', 'EXPIRED')),
+    PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+CREATE TABLE reservations_default PARTITION OF reservations DEFAULT;
+
+CREATE INDEX idx_reservations_user_created ON reservations (user_id, created, id);
+CREATE INDEX idx_reservations_user_status ON reservations (user_id, status);
+CREATE INDEX idx_reservations_status_created ON reservations (status, created);
+
+CREATE TABLE reservations_archive (
+    id       uuid         NOT NULL PRIMARY KEY,
+    user_id  uuid         NOT NULL,
+    book_id  uuid         NOT NULL,
+    created  timestamp(6) NOT NULL,
+    status   varchar(255) NOT NULL CHECK (status IN ('ACTIVE', 'CANCELED', 'EXPIRED')),
+    archived timestamp(6) NOT NULL
+);
+
+CREATE INDEX idx_reservations_archive_user_created ON reservations_archive (user_id, created);
+
+CREATE TABLE user_quota (
+    user_id             uuid         NOT NULL PRIMARY KEY,
+    active_reservations bigint       NOT NULL,
+    tier                varchar(255) NOT NULL CHECK (tier IN ('STANDARD', 'PREMIUM', 'STAFF')),
+    CONSTRAINT user_quota_active_reservations_check CHECK (active_reservations >= 0)
+);
+
+CREATE TABLE waitlist (
+    id      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    book_id uuid NOT NULL,
+    user_id uuid NOT NULL,
+    created timestamp(6),
+    CONSTRAINT uk_waitlist_book_user UNIQUE (book_id, user_id)
+);
+
+CREATE INDEX idx_waitlist_book_position ON waitlist (book_id, id);
+
+CREATE TABLE reservation_events (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sequence       bigint UNIQUE,
+    type           varchar(255) NOT NULL CHECK (type IN ('CREATED', 'CANCELED', 'EXPIRED')),
+    reservation_id uuid         NOT NULL,
+    user_id        uuid         NOT NULL,
+    book_id        uuid         NOT NULL,
+    created        timestamp(6)
+);
+
+CREATE INDEX idx_reservation_events_sequence ON reservation_events (sequence, id);
+
+CREATE TABLE idempotency_keys (
+    idempotency_key varchar(300) NOT NULL PRIMARY KEY,
+    user_id         uuid         NOT NULL,
+    book_id         uuid         NOT NULL,
+    reservation_id  uuid,
+    created         timestamp(6) NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_created ON idempotency_keys (created);
+
+-- creates the partition of the month starting at month_start, moving in the rows the default partition holds for it
+CREATE OR REPLACE FUNCTION create_reservations_partition(month_start date) RETURNS boolean AS $$
+DECLARE
+    partition_name text := 'reservations_' || to_char(month_start, 'YYYY_MM');
+    month_end date := (month_start + interval '1 month')::date;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE reservations INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM reservations_default WHERE created >= %L AND created < %L RETURNING *) '
+                       'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE reservations ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, month_start, month_end);
+    RETURN true;
+END
+$$ LANGUAGE plpgsql;
+
+-- drops the monthly partitions that end before cutoff and hold no rows any more, once the archiver moved them out
+CREATE OR REPLACE FUNCTION drop_empty_reservations_partitions(cutoff timestamp) RETURNS integer AS $$
+DECLARE
+    child record;
+    is_empty boolean;
+    dropped integer := 0;
+BEGIN
+    FOR child IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'reservations'::regclass AND c.relname ~ '^reservations_\d{4}_\d{2}$'
+    LOOP
+        IF (to_date(substr(child.relname, 14), 'YYYY_MM') + interval '1 month') <= cutoff THEN
+            EXECUTE format('SELECT NOT EXISTS (SELECT 1 FROM %I)', child.relname) INTO is_empty;
+            IF is_empty THEN
+                EXECUTE format('DROP TABLE %I', child.relname);
+                dropped := dropped + 1;
+            END IF;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END
+$$ LANGUAGE plpgsql;
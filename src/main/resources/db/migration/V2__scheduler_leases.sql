@@ -0,0 +1,6 @@
+-- Leases coordinating the scheduled jobs across nodes: the maintenance leader and one liveness lease per node.
+CREATE TABLE scheduler_leases (
+    name    varchar(100) NOT NULL PRIMARY KEY,
+    owner   varchar(100) NOT NULL,
+    expires timestamp(6) NOT NULL
+);
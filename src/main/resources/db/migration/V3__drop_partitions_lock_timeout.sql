@@ -0,0 +1,28 @@
+-- drops the monthly partitions that end before cutoff and hold no rows any more, once the archiver moved them out;
+-- a partition still in use (e.g. by a long export) is skipped after lock_timeout instead of queueing every query
+-- on reservations behind the ACCESS EXCLUSIVE lock of DROP TABLE, and is dropped on a later run
+CREATE OR REPLACE FUNCTION drop_empty_reservations_partitions(cutoff timestamp) RETURNS integer AS $$
+DECLARE
+    child record;
+    is_empty boolean;
+    dropped integer := 0;
+BEGIN
+    FOR child IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'reservations'::regclass AND c.relname ~ '^reservations_\d{4}_\d{2}$'
+    LOOP
+        IF (to_date(substr(child.relname, 14), 'YYYY_MM') + interval '1 month') <= cutoff THEN
+            EXECUTE format('SELECT NOT EXISTS (SELECT 1 FROM %I)', child.relname) INTO is_empty;
+            IF is_empty THEN
+                BEGIN
+                    EXECUTE format('DROP TABLE %I', child.relname);
+                    dropped := dropped + 1;
+                EXCEPTION WHEN lock_not_available THEN
+                    RAISE NOTICE 'partition % is in use, it is dropped on a later run', child.relname;
+                END;
+            END IF;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END
+$$ LANGUAGE plpgsql SET lock_timeout = '2s';
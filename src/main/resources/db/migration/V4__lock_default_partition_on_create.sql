@@ -0,0 +1,22 @@
+-- creates the partition of the month starting at month_start, moving in the rows the default partition holds for it;
+-- the default partition stays locked from the move to the attach, so an insert for that month cannot land in it
+-- in between and fail the attach
+CREATE OR REPLACE FUNCTION create_reservations_partition(month_start date) RETURNS boolean AS $$
+DECLARE
+    partition_name text := 'reservations_' || to_char(month_start, 'YYYY_MM');
+    month_end date := (month_start + interval '1 month')::date;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE reservations INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    LOCK TABLE reservations IN SHARE UPDATE EXCLUSIVE MODE;
+    LOCK TABLE reservations_default IN ACCESS EXCLUSIVE MODE;
+    EXECUTE format('WITH moved AS (DELETE FROM reservations_default WHERE created >= %L AND created < %L RETURNING *) ' ||
+                   'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE reservations ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, month_start, month_end);
+    RETURN true;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,7 @@
+-- Outbox ids come from a pooled sequence (50 ids per call, as hibernate.jdbc.batch_size) so the events of a
+-- batch are inserted in JDBC batches; the relay numbers events by creation time, as ids of nodes interleave.
+CREATE SEQUENCE reservation_events_seq INCREMENT BY 50;
+SELECT setval('reservation_events_seq', (SELECT COALESCE(max(id), 0) + 1 FROM reservation_events));
+
+DROP INDEX idx_reservation_events_sequence;
+CREATE INDEX idx_reservation_events_sequence ON reservation_events (sequence, created, id);
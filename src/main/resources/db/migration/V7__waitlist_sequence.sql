@@ -0,0 +1,3 @@
+-- Waitlist ids come from waitlist_seq, like the outbox ids; enqueue takes every id from it in join order.
+CREATE SEQUENCE waitlist_seq INCREMENT BY 50;
+SELECT setval('waitlist_seq', (SELECT COALESCE(max(id), 0) + 1 FROM waitlist));
@@ -0,0 +1,5 @@
+-- Sequence of the last event written by each durable event sink; the outbox prune keeps the events after the lowest one.
+CREATE TABLE event_sink_cursors (
+    name     varchar(100) NOT NULL PRIMARY KEY,
+    sequence bigint       NOT NULL
+);
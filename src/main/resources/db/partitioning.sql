@@ -0,0 +1,77 @@
+-- Runs after Hibernate has created the schema (spring.jpa.defer-datasource-initialization) and on every
+-- start, so every statement is idempotent. Statements are separated by @@ because of the plpgsql bodies.
+
+-- reservations becomes a table partitioned by month of creation; rows without a monthly partition
+-- land in reservations_default until create_reservations_partition moves them out
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'reservations'::regclass) THEN
+        ALTER TABLE reservations RENAME TO reservations_unpartitioned;
+        CREATE TABLE reservations (LIKE reservations_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+            PARTITION BY RANGE (created);
+        -- a primary key of a partitioned table must contain the partition key
+        ALTER TABLE reservations ADD PRIMARY KEY (id, created);
+        CREATE TABLE reservations_default PARTITION OF reservations DEFAULT;
+        INSERT INTO reservations SELECT * FROM reservations_unpartitioned;
+        DROP TABLE reservations_unpartitioned;
+        CREATE INDEX idx_reservations_user_created ON reservations (user_id, created, id);
+        CREATE INDEX idx_reservations_user_status ON reservations (user_id, status);
+        CREATE INDEX idx_reservations_status_created ON reservations (status, created);
+    END IF;
+END
+$$
+@@
+
+-- creates the partition of the month starting at month_start, moving in the rows the default partition holds for it;
+-- the default partition stays locked from the move to the attach, so an insert for that month cannot land in it
+-- in between and fail the attach
+CREATE OR REPLACE FUNCTION create_reservations_partition(month_start date) RETURNS boolean AS $$
+DECLARE
+    partition_name text := 'reservations_' || to_char(month_start, 'YYYY_MM');
+    month_end date := (month_start + interval '1 month')::date;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE reservations INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    LOCK TABLE reservations IN SHARE UPDATE EXCLUSIVE MODE;
+    LOCK TABLE reservations_default IN ACCESS EXCLUSIVE MODE;
+    EXECUTE format('WITH moved AS (DELETE FROM reservations_default WHERE created >= %L AND created < %L RETURNING *) ' ||
+                   'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE reservations ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, month_start, month_end);
+    RETURN true;
+END
+$$ LANGUAGE plpgsql
+@@
+
+-- drops the monthly partitions that end before cutoff and hold no rows any more, once the archiver moved them out;
+-- a partition still in use (e.g. by a long export) is skipped after lock_timeout instead of queueing every query
+-- on reservations behind the ACCESS EXCLUSIVE lock of DROP TABLE, and is dropped on a later run
+CREATE OR REPLACE FUNCTION drop_empty_reservations_partitions(cutoff timestamp) RETURNS integer AS $$
+DECLARE
+    child record;
+    is_empty boolean;
+    dropped integer := 0;
+BEGIN
+    FOR child IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'reservations'::regclass AND c.relname ~ '^reservations_\d{4}_\d{2}$'
+    LOOP
+        IF (to_date(substr(child.relname, 14), 'YYYY_MM') + interval '1 month') <= cutoff THEN
+            EXECUTE format('SELECT NOT EXISTS (SELECT 1 FROM %I)', child.relname) INTO is_empty;
+            IF is_empty THEN
+                BEGIN
+                    EXECUTE format('DROP TABLE %I', child.relname);
+                    dropped := dropped + 1;
+                EXCEPTION WHEN lock_not_available THEN
+                    RAISE NOTICE 'partition % is in use, it is dropped on a later run', child.relname;
+                END;
+            END IF;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END
+$$ LANGUAGE plpgsql SET lock_timeout = '2s'
+@@
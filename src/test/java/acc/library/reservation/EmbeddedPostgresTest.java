@@ -0,0 +1,111 @@
+package acc.library.reservation;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import acc.library.reservation.dto.ReservationDTO;
+import acc.library.reservation.entity.Books;
+import acc.library.reservation.entity.BooksRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Base of the integration tests. Boots the application without a web server against a
+ * throw-away embedded PostgreSQL instance, shared by all test classes, so the tests exercise
+ * the real native queries and row locks without any external database. The scheduled jobs
+ * are off, so the tests drive the jobs they need themselves.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public abstract class EmbeddedPostgresTest {
+    protected static final EmbeddedPostgres POSTGRES = start();
+
+    @Autowired
+    protected BooksRepository booksRepository;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> 32);
+        registry.add("springdoc.api-docs.enabled", () -> false);
+        registry.add("reservation.scheduling.enabled", () -> false);
+    }
+
+    public static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Saves a new book with a unique ISBN.
+     *
+     * @return the id of the book
+     */
+    protected UUID saveBook(String title, long copies) {
+        return booksRepository.save(new Books(null, title, "Test", UUID.randomUUID().toString(), copies)).getId();
+    }
+
+    protected long copiesOf(UUID bookId) {
+        return booksRepository.findById(bookId).orElseThrow().getCopies();
+    }
+
+    protected long countReservations(UUID bookId, String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM reservations WHERE book_id = ? AND status = ?", Long.class, bookId, status);
+    }
+
+    protected static ReservationDTO reservation(UUID userId, UUID bookId) {
+        ReservationDTO reservation = new ReservationDTO();
+        reservation.setUserId(userId);
+        reservation.setBookId(bookId);
+        return reservation;
+    }
+
+    /**
+     * Runs the tasks on a pool of the given number of threads, released together so they contend
+     * for the same rows, and waits for all of them.
+     *
+     * @return the results of the tasks, in the order of the tasks
+     */
+    protected static <T> List<T> race(int threads, List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package acc.library.reservation.datasource;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.EmbeddedPostgresTest;
+import acc.library.reservation.dto.ReservationInfoDTO;
+import acc.library.reservation.entity.Books;
+import acc.library.reservation.entity.BooksRepository;
+import acc.library.reservation.service.ReservationService;
+import acc.library.reservation.type.ReservationStatus;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A reservation written through another node is read back through this one. The replica is a
+ * second embedded PostgreSQL that reports itself in recovery without lag but never receives
+ * the writes, the worst a lagging replica can do; this node has no in-memory mark of the write,
+ * so only the cookie of {@link ReadYourWritesFilter} can send the read to the primary.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ReadYourWritesAcrossNodesTest {
+    private static final EmbeddedPostgres PRIMARY = EmbeddedPostgresTest.start();
+
+    private static final EmbeddedPostgres REPLICA = staleReplica();
+
+    @Autowired
+    ReadYourWritesFilter readYourWritesFilter;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> PRIMARY.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("reservation.datasource.replicas.urls", () -> REPLICA.getJdbcUrl("postgres", "postgres"));
+        registry.add("springdoc.api-docs.enabled", () -> false);
+        registry.add("reservation.scheduling.enabled", () -> false);
+    }
+
+    @Test
+    void readAfterAWriteOnAnotherNodeGoesToThePrimary() throws Exception {
+        //the write of the other node, which answered with the cookie
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        readYourWritesFilter.doFilter(new MockHttpServletRequest("POST", "/reservation"), written, (request, response) -> {
+        });
+        Cookie cookie = written.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+
+        UUID bookId = booksRepository.save(new Books(null, "Replicated Title", "Test", UUID.randomUUID().toString(), 1L)).getId();
+        UUID reservationId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO reservations (id, user_id, book_id, created, status) VALUES (?, ?, ?, now(), 'ACTIVE')",
+                reservationId, UUID.randomUUID(), bookId);
+
+        //without the cookie the read goes to the replica, which has not seen the write
+        ResponseStatusException stale = assertThrows(ResponseStatusException.class,
+                () -> read(new MockHttpServletRequest("GET", "/reservation/" + reservationId), reservationId));
+        assertEquals(HttpStatus.NOT_FOUND, stale.getStatusCode());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/reservation/" + reservationId);
+        request.setCookies(cookie);
+        assertEquals(ReservationStatus.ACTIVE, read(request, reservationId).getStatus());
+        assertFalse(RoutingContext.isPrimaryRequired());
+    }
+
+    private ReservationInfoDTO read(MockHttpServletRequest request, UUID reservationId) throws Exception {
+        AtomicReference<ReservationInfoDTO> reservation = new AtomicReference<>();
+        FilterChain chain = (filteredRequest, response) -> reservation.set(reservationService.getReservationById(reservationId));
+        readYourWritesFilter.doFilter(request, new MockHttpServletResponse(), chain);
+        return reservation.get();
+    }
+
+    /**
+     * Starts a database that passes the replica health check but has none of the rows: it
+     * claims to be in recovery, with no replay lag, and has an empty reservations table.
+     */
+    private static EmbeddedPostgres staleReplica() {
+        EmbeddedPostgres replica = EmbeddedPostgresTest.start();
+        try (Connection connection = replica.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE FUNCTION public.pg_is_in_recovery() RETURNS boolean AS 'SELECT true' LANGUAGE sql");
+            statement.execute("ALTER DATABASE postgres SET search_path = public, pg_catalog");
+            statement.execute("CREATE TABLE reservations (id uuid PRIMARY KEY, user_id uuid, book_id uuid, " +
+                    "created timestamp(6), status varchar(255))");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return replica;
+    }
+}
@@ -0,0 +1,74 @@
+package acc.library.reservation.datasource;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesFilterTest {
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofMillis(5500));
+
+    @Test
+    void writesSetTheCookieForTheWholeWindow() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/reservation"), response, (req, res) -> {
+        });
+
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+        assertEquals(6, cookie.getMaxAge());
+        assertEquals("/", cookie.getPath());
+        assertTrue(Long.parseLong(cookie.getValue()) > System.currentTimeMillis());
+    }
+
+    @Test
+    void readsDoNotSetTheCookie() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/reservation"), response, (req, res) -> {
+        });
+
+        assertNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+    }
+
+    @Test
+    void readsWithAnUnexpiredCookieRunOnThePrimary() throws Exception {
+        assertTrue(primaryRequired(String.valueOf(System.currentTimeMillis() + 5000)));
+        assertFalse(RoutingContext.isPrimaryRequired());
+    }
+
+    @Test
+    void readsWithAnExpiredOrMalformedCookieRunOnAReplica() throws Exception {
+        assertFalse(primaryRequired(String.valueOf(System.currentTimeMillis() - 1)));
+        assertFalse(primaryRequired("later"));
+    }
+
+    @Test
+    void readsAlreadyOnThePrimaryStayThere() throws Exception {
+        RoutingContext.onPrimary(() -> {
+            try {
+                assertTrue(primaryRequired(String.valueOf(System.currentTimeMillis() + 5000)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            assertTrue(RoutingContext.isPrimaryRequired());
+            return null;
+        });
+    }
+
+    private boolean primaryRequired(String until) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/reservation");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, until));
+        AtomicBoolean required = new AtomicBoolean();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> required.set(RoutingContext.isPrimaryRequired()));
+        return required.get();
+    }
+}
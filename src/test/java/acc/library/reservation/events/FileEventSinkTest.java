@@ -0,0 +1,65 @@
+package acc.library.reservation.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import acc.library.reservation.dto.ReservationEventDTO;
+import acc.library.reservation.type.ReservationEventType;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileEventSinkTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumesAfterTheLastEventInTheFile() throws Exception {
+        Path path = directory.resolve("events.ndjson");
+        FileEventSink sink = new FileEventSink(new ObjectMapper(), path);
+        assertEquals(0, sink.lastSequence());
+
+        sink.write(List.of(event(1), event(2)));
+        sink.write(List.of(event(3)));
+        sink.close();
+
+        FileEventSink reopened = new FileEventSink(new ObjectMapper(), path);
+        assertEquals(3, reopened.lastSequence());
+        reopened.close();
+        assertEquals(3, Files.readAllLines(path).size());
+    }
+
+    @Test
+    void dropsALineCutShortByACrash() throws Exception {
+        Path path = directory.resolve("events.ndjson");
+        FileEventSink sink = new FileEventSink(new ObjectMapper(), path);
+        sink.write(List.of(event(1), event(2)));
+        sink.close();
+        Files.writeString(path, "{\"sequence\":3,\"ty", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileEventSink reopened = new FileEventSink(new ObjectMapper(), path);
+        assertEquals(2, reopened.lastSequence());
+        reopened.write(List.of(event(3)));
+        reopened.close();
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(3, lines.size());
+        assertEquals(3, new ObjectMapper().readValue(lines.get(2), ReservationEventDTO.class).getSequence());
+    }
+
+    private static ReservationEventDTO event(long sequence) {
+        ReservationEventDTO event = new ReservationEventDTO();
+        event.setSequence(sequence);
+        event.setType(ReservationEventType.CREATED);
+        event.setReservationId(UUID.randomUUID());
+        event.setUserId(UUID.randomUUID());
+        event.setBookId(UUID.randomUUID());
+        return event;
+    }
+}
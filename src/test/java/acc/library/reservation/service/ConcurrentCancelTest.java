@@ -0,0 +1,100 @@
+package acc.library.reservation.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.EmbeddedPostgresTest;
+import acc.library.reservation.type.ReservationStatus;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many threads closing the same reservation at once, by cancel or by the expiry job: the
+ * reservation changes state exactly once, its copy and quota are given back exactly once and a
+ * single event is recorded. The user holds another reservation so a second release of the quota
+ * would show instead of being clamped at zero.
+ */
+class ConcurrentCancelTest extends EmbeddedPostgresTest {
+    private static final int THREADS = 16;
+
+    private static final int ROUNDS = 20;
+
+    private static final long COPIES = 3;
+
+    @Autowired
+    ReservationService reservationService;
+
+    private UUID userId;
+
+    private UUID bookId;
+
+    @BeforeEach
+    void reserveAnotherBook() {
+        userId = UUID.randomUUID();
+        bookId = saveBook("Contended Title", COPIES);
+        reservationService.create(reservation(userId, saveBook("Other Title", 1)));
+    }
+
+    @Test
+    void concurrentCancelsCloseTheReservationOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            UUID reservationId = reservationService.create(reservation(userId, bookId));
+
+            List<Integer> canceled = race(THREADS, Collections.nCopies(THREADS, cancel(reservationId)));
+
+            assertEquals(1, canceled.stream().mapToInt(Integer::intValue).sum());
+            assertClosedOnce(reservationId);
+        }
+    }
+
+    @Test
+    void cancelRacingExpiryClosesTheReservationOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            UUID reservationId = reservationService.create(reservation(userId, bookId));
+            //only this reservation is old enough for the expiry batch below
+            jdbcTemplate.update("UPDATE reservations SET created = TIMESTAMP '2000-01-01' WHERE id = ?", reservationId);
+            Date cutoff = Timestamp.valueOf("2000-01-02 00:00:00");
+
+            Callable<Integer> expire = () -> reservationService.expireReservations(cutoff, 10, 1, 0);
+            List<Integer> closed = race(2, List.of(expire, cancel(reservationId)));
+
+            assertEquals(1, closed.stream().mapToInt(Integer::intValue).sum());
+            assertClosedOnce(reservationId);
+        }
+    }
+
+    /**
+     * Cancels the reservation, returning {@code 1} if this attempt closed it and {@code 0} if it was already closed.
+     */
+    private Callable<Integer> cancel(UUID reservationId) {
+        return () -> {
+            try {
+                reservationService.cancelReservationStatus(reservationId, ReservationStatus.CANCELED);
+                return 1;
+            } catch (ResponseStatusException e) {
+                assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+                return 0;
+            }
+        };
+    }
+
+    private void assertClosedOnce(UUID reservationId) {
+        assertEquals(COPIES, copiesOf(bookId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT active_reservations FROM user_quota WHERE user_id = ?", Long.class, userId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM reservation_events WHERE reservation_id = ? AND type IN ('CANCELED', 'EXPIRED')",
+                Long.class, reservationId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM reservations WHERE id = ? AND status = 'ACTIVE'", Long.class, reservationId));
+    }
+}
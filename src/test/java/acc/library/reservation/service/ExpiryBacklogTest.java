@@ -0,0 +1,78 @@
+package acc.library.reservation.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import acc.library.reservation.EmbeddedPostgresTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drains a backlog of expired reservations the way the expiry job does on several nodes: each
+ * node expires its shard of book ids in bounded batches until a batch comes back short. Every
+ * reservation is expired exactly once and every copy and quota is given back.
+ * <p>
+ * The backlog size is set with {@code -Dreservation.test.expiry-backlog}, e.g. {@code 1000000}
+ * for a full-size run; the default keeps the build fast.
+ */
+class ExpiryBacklogTest extends EmbeddedPostgresTest {
+    private static final int BACKLOG = Integer.getInteger("reservation.test.expiry-backlog", 20_000);
+
+    private static final int BOOKS = 20;
+
+    private static final int SHARDS = 4;
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Test
+    void expiresTheWholeBacklogAndGivesBackEveryCopy() throws Exception {
+        int perBook = BACKLOG / BOOKS;
+        List<UUID> bookIds = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            //every copy of the book is out on a reservation of the backlog
+            UUID bookId = saveBook("Backlog Title " + i, 0);
+            jdbcTemplate.update("INSERT INTO reservations (id, user_id, book_id, created, status) " +
+                    "SELECT gen_random_uuid(), gen_random_uuid(), ?, now() - interval '30 days', 'ACTIVE' " +
+                    "FROM generate_series(1, ?)", bookId, perBook);
+            jdbcTemplate.update("INSERT INTO user_quota (user_id, active_reservations, tier) " +
+                    "SELECT user_id, 1, 'STANDARD' FROM reservations WHERE book_id = ?", bookId);
+            bookIds.add(bookId);
+        }
+
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(7));
+        List<Callable<Integer>> nodes = new ArrayList<>(SHARDS);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            int node = shard;
+            nodes.add(() -> {
+                int processed = 0;
+                int expired;
+                do {
+                    expired = reservationService.expireReservations(cutoff, BATCH_SIZE, SHARDS, node);
+                    processed += expired;
+                } while (expired == BATCH_SIZE);
+                return processed;
+            });
+        }
+
+        int processed = race(SHARDS, nodes).stream().mapToInt(Integer::intValue).sum();
+
+        assertEquals(perBook * BOOKS, processed);
+        for (UUID bookId : bookIds) {
+            assertEquals(perBook, copiesOf(bookId));
+            assertEquals(0, countReservations(bookId, "ACTIVE"));
+            assertEquals(perBook, countReservations(bookId, "EXPIRED"));
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(sum(q.active_reservations), 0) FROM user_quota q " +
+                            "JOIN reservations r ON r.user_id = q.user_id WHERE r.book_id = ?", Long.class, bookId));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package acc.library.reservation.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.EmbeddedPostgresTest;
+import acc.library.reservation.inventory.InventoryService;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many threads reserving the last copies of one hot book: every copy is reserved exactly once,
+ * the counter never goes below zero and the other attempts are told there are no copies left.
+ */
+class HotBookReservationTest extends EmbeddedPostgresTest {
+    private static final int THREADS = 64;
+
+    private static final int ATTEMPTS = 600;
+
+    private static final long COPIES = 100;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    @Test
+    void concurrentReservationsNeverOversellOneBook() throws Exception {
+        UUID bookId = saveBook("Hot Title", COPIES);
+
+        Callable<Boolean> attempt = () -> {
+            try {
+                reservationService.create(reservation(UUID.randomUUID(), bookId));
+                return true;
+            } catch (ResponseStatusException e) {
+                assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+                return false;
+            }
+        };
+        List<Boolean> created = race(THREADS, Collections.nCopies(ATTEMPTS, attempt));
+
+        assertEquals(COPIES, created.stream().filter(Boolean::booleanValue).count());
+        assertEquals(0, copiesOf(bookId) + inventoryService.heldCopies(bookId));
+        assertEquals(COPIES, countReservations(bookId, "ACTIVE"));
+    }
+}
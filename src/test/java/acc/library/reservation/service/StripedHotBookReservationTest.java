@@ -0,0 +1,11 @@
+package acc.library.reservation.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * {@link HotBookReservationTest} with the striped inventory engine, which serves the copies
+ * from leases held in memory.
+ */
+@TestPropertySource(properties = "reservation.inventory.mode=striped")
+class StripedHotBookReservationTest extends HotBookReservationTest {
+}
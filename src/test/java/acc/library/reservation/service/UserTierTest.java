@@ -0,0 +1,61 @@
+package acc.library.reservation.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.server.ResponseStatusException;
+import acc.library.reservation.EmbeddedPostgresTest;
+import acc.library.reservation.type.QuotaTier;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A user moved to another tier can hold as many active reservations as that tier allows, whether
+ * the tier is set before the first reservation or after the user reached the standard limit.
+ */
+class UserTierTest extends EmbeddedPostgresTest {
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    UserQuotaService userQuotaService;
+
+    @Value("${reservation.quota.limit.standard}")
+    int standardLimit;
+
+    @Value("${reservation.quota.limit.premium}")
+    int premiumLimit;
+
+    @Test
+    void premiumTierSetBeforeTheFirstReservationRaisesTheLimit() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = saveBook("Premium Title", premiumLimit + 1);
+        userQuotaService.setTier(userId, QuotaTier.PREMIUM);
+
+        for (int i = 0; i < premiumLimit; i++) {
+            reservationService.create(reservation(userId, bookId));
+        }
+        assertThrows(ResponseStatusException.class, () -> reservationService.create(reservation(userId, bookId)));
+        assertEquals(premiumLimit, countReservations(bookId, "ACTIVE"));
+    }
+
+    @Test
+    void premiumTierSetAtTheStandardLimitKeepsTheActiveReservations() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = saveBook("Upgraded Title", premiumLimit);
+        for (int i = 0; i < standardLimit; i++) {
+            reservationService.create(reservation(userId, bookId));
+        }
+        assertThrows(ResponseStatusException.class, () -> reservationService.create(reservation(userId, bookId)));
+
+        userQuotaService.setTier(userId, QuotaTier.PREMIUM);
+        for (int i = standardLimit; i < premiumLimit; i++) {
+            reservationService.create(reservation(userId, bookId));
+        }
+        assertEquals(premiumLimit, jdbcTemplate.queryForObject(
+                "SELECT active_reservations FROM user_quota WHERE user_id = ?", Long.class, userId));
+    }
+}
@@ -0,0 +1,49 @@
+package acc.library.reservation.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import acc.library.reservation.EmbeddedPostgresTest;
+import acc.library.reservation.type.ReservationStatus;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Users joining the waitlist of a sold-out book at the same time each get their own place, and a
+ * copy given back goes to the first of them and takes one place off the queue.
+ */
+class WaitlistTest extends EmbeddedPostgresTest {
+    private static final int WAITERS = 32;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    WaitlistService waitlistService;
+
+    @Test
+    void concurrentJoinsGetDistinctPlacesAndTheHeadGetsTheReturnedCopy() throws Exception {
+        UUID bookId = saveBook("Waited Title", 1);
+        UUID reservationId = reservationService.create(reservation(UUID.randomUUID(), bookId));
+
+        Callable<Long> join = () -> waitlistService.join(reservation(UUID.randomUUID(), bookId)).getPosition();
+        Set<Long> positions = new TreeSet<>(race(WAITERS, Collections.nCopies(WAITERS, join)));
+        assertEquals(LongStream.rangeClosed(1, WAITERS).boxed().collect(Collectors.toSet()), positions);
+
+        UUID head = jdbcTemplate.queryForObject(
+                "SELECT user_id FROM waitlist WHERE book_id = ? ORDER BY id LIMIT 1", UUID.class, bookId);
+        reservationService.cancelReservationStatus(reservationId, ReservationStatus.CANCELED);
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM reservations WHERE book_id = ? AND user_id = ? AND status = 'ACTIVE'", Long.class, bookId, head));
+        assertEquals(0, copiesOf(bookId));
+        assertEquals(WAITERS, waitlistService.join(reservation(UUID.randomUUID(), bookId)).getPosition());
+    }
+}